@@ -0,0 +1,109 @@
+package edu.uga.cs.tradeit.metrics;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+
+import edu.uga.cs.tradeit.BuildConfig;
+import edu.uga.cs.tradeit.R;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Debug only screen listing the latency of every operation recorded by Metrics in this process.
+ *
+ * Each row shows how many times the operation ran and its mean, p50, p90, p99 and max in
+ * milliseconds. Export writes the full histograms as CSV to a file the user picks, so runs from
+ * two builds can be compared side by side.
+ */
+public class MetricsActivity extends AppCompatActivity {
+    private static final String TAG = "MetricsActivity";
+
+    private TextView tvMetrics;
+
+    // Asks where to save the CSV, the system picker needs no storage permission
+    private final ActivityResultLauncher<String> exportCsv = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), uri -> {
+                if (uri != null) {
+                    export(uri);
+                }
+            });
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        tvMetrics = findViewById(R.id.tvMetrics);
+
+        Button btnRefresh = findViewById(R.id.btnRefresh);
+        Button btnReset = findViewById(R.id.btnReset);
+        Button btnExport = findViewById(R.id.btnExport);
+
+        btnRefresh.setOnClickListener(v -> showMetrics());
+        btnReset.setOnClickListener(v -> {
+            Metrics.reset();
+            showMetrics();
+        });
+        btnExport.setOnClickListener(v -> {
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+            exportCsv.launch("tradeit-metrics-" + stamp + ".csv");
+        });
+    }
+
+    // Refreshed every time the screen comes back, after using the app in between
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        Map<String, LatencyHistogram.Summary> summaries = Metrics.summaries();
+        if (summaries.isEmpty()) {
+            tvMetrics.setText("Nothing recorded yet, use the app and come back");
+            return;
+        }
+
+        StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "%-28s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram.Summary> entry : summaries.entrySet()) {
+            LatencyHistogram.Summary s = entry.getValue();
+            text.append(String.format(Locale.US, "%-28s %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), s.count, s.meanMs, s.percentileMs(50), s.percentileMs(90),
+                    s.percentileMs(99), s.maxMs));
+        }
+        text.append("\nAll times in ms. Percentiles are bucket upper bounds.");
+        tvMetrics.setText(text);
+    }
+
+    private void export(Uri uri) {
+        try (OutputStream stream = getContentResolver().openOutputStream(uri)) {
+            if (stream == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+            Metrics.writeCsv(out, BuildConfig.VERSION_NAME);
+            out.flush();
+            Toast.makeText(this, "Metrics exported", Toast.LENGTH_SHORT).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Export failed", e);
+            Toast.makeText(this, "Export failed", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -13,25 +13,25 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebase.ui.database.FirebaseRecyclerAdapter;
-import com.firebase.ui.database.FirebaseRecyclerOptions;
-import com.firebase.ui.database.SnapshotParser;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.GenericTypeIndicator;
 import com.google.firebase.database.Query;
 import com.google.firebase.database.ServerValue;
-import com.google.firebase.database.ValueEventListener;
 
-import java.util.ArrayList;
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Category;
+
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * CategoriesActivity manages the list of trade categories which enables users to view, add, update and delete categories.
@@ -41,14 +41,35 @@ import java.util.Map;
 public class CategoriesActivity extends AppCompatActivity {
 
     private RecyclerView rvCategories;
-    private FirebaseRecyclerAdapter<Map<String, Object>, CategoryViewHolder> adapter;
-    private final FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private SnapshotListAdapter<Category, CategoryViewHolder> adapter;
+    // Held between onStart and onStop, shared through the ListenerRegistry
+    private LiveSnapshotList<Category> liveList;
+    private ListenerRegistry.Factory<LiveSnapshotList<Category>> listFactory;
+    private LiveSnapshotList.Listener<Category> listListener;
+    private static final String LIST_KEY = "categories|name";
+    // Rows, scroll position and the live query survive rotation here
+    private ListStateViewModel listState;
+    private FirebaseAuth mAuth;
 
     private static final String KEY_SELECTED_CAT = "selected_category";
-    private static final String KEY_LIST_STATE = "list_state";
 
     String selectedCategoryId;
 
+    // Rows rebind only when a field the row shows or acts on changes
+    private static final DiffUtil.ItemCallback<Category> DIFF = new DiffUtil.ItemCallback<Category>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return Objects.equals(oldItem.id, newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Category oldItem, @NonNull Category newItem) {
+            return Objects.equals(oldItem.name, newItem.name)
+                    && Objects.equals(oldItem.creatorUid, newItem.creatorUid)
+                    && oldItem.itemCount == newItem.itemCount;
+        }
+    };
+
     /**
      * Initializes the activity layout, RecyclerView and event listeners
      */
@@ -57,14 +78,14 @@ public class CategoriesActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_categories);
+        mAuth = FirebaseAuth.getInstance();
 
         rvCategories = findViewById(R.id.rvCategories);
         rvCategories.setLayoutManager(new LinearLayoutManager(this));
-        rvCategories.setItemAnimator(null);
+        listState = new ViewModelProvider(this).get(ListStateViewModel.class);
 
         if (savedInstanceState != null) {
             selectedCategoryId = savedInstanceState.getString(KEY_SELECTED_CAT);
-            ArrayList<String> savedList = savedInstanceState.getStringArrayList(KEY_LIST_STATE);
         }
 
         setupAdapter();
@@ -78,38 +99,28 @@ public class CategoriesActivity extends AppCompatActivity {
      */
 
     private void setupAdapter() {
-        Query query = FirebaseDatabase.getInstance()
-                .getReference("categories")
-                .orderByChild("name");
+        Query query = IndexedQueries.CATEGORIES_BY_NAME.on(
+                FirebaseDatabase.getInstance().getReference("categories"));
 
-        SnapshotParser<Map<String, Object>> parser = new SnapshotParser<Map<String, Object>>() {
-            @NonNull
-            @Override
-            public Map<String, Object> parseSnapshot(@NonNull DataSnapshot snapshot) {
-                GenericTypeIndicator<Map<String, Object>> indicator =
-                        new GenericTypeIndicator<Map<String, Object>>() {};
-                Map<String, Object> value = snapshot.getValue(indicator);
-                return value != null ? value : new HashMap<>();
-            }
-        };
+        // Looked up once here instead of on every bind
+        String currentUid = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : null;
 
-        FirebaseRecyclerOptions<Map<String, Object>> options =
-                new FirebaseRecyclerOptions.Builder<Map<String, Object>>()
-                        .setQuery(query, parser)
-                        .build();
+        listFactory = () -> new LiveSnapshotList<>(query, Category::fromSnapshot);
 
-        adapter = new FirebaseRecyclerAdapter<Map<String, Object>, CategoryViewHolder>(options) {
+        adapter = new SnapshotListAdapter<Category, CategoryViewHolder>(DIFF) {
             @Override
-            protected void onBindViewHolder(@NonNull CategoryViewHolder holder,
-                                            int position,
-                                            @NonNull Map<String, Object> model) {
-                String catName = (String) model.get("name");
-                String catId = getRef(position).getKey();
-                String creatorUid = (String) model.get("creatorUid");
+            protected String keyOf(@NonNull Category row) {
+                return row.id;
+            }
 
-                holder.bind(catName, catId, creatorUid);
+            @Override
+            public void onBindViewHolder(@NonNull CategoryViewHolder holder, int position) {
+                Category model = getItem(position);
+                long start = Metrics.begin("bind.category");
+                holder.bind(model);
+                Metrics.end("bind.category", start);
 
-                if (catId != null && catId.equals(selectedCategoryId)) {
+                if (model.id != null && model.id.equals(selectedCategoryId)) {
                     holder.itemView.setSelected(true);
                 } else {
                     holder.itemView.setSelected(false);
@@ -121,12 +132,23 @@ public class CategoriesActivity extends AppCompatActivity {
             public CategoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
                 View view = LayoutInflater.from(parent.getContext())
                         .inflate(R.layout.item_category, parent, false);
-                return new CategoryViewHolder(view);
+                return new CategoryViewHolder(view, currentUid);
             }
 
         };
 
         rvCategories.setAdapter(adapter);
+        listListener = rows -> {
+            listState.setRows(rows);
+            adapter.submitList(rows);
+        };
+
+        // After a rotation the last rows are shown from memory and scrolled back into place
+        List<Category> cached = listState.getRows();
+        if (cached != null) {
+            adapter.submitList(cached);
+            rvCategories.getLayoutManager().onRestoreInstanceState(listState.getLayoutState());
+        }
     }
 
     /**
@@ -155,7 +177,6 @@ public class CategoriesActivity extends AppCompatActivity {
                     ref.child("name").setValue(name);
                     ref.child("createdDate").setValue(ServerValue.TIMESTAMP);
                     ref.child("creatorUid").setValue(mAuth.getCurrentUser().getUid());
-                    ref.child("items").setValue(null);
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -197,43 +218,28 @@ public class CategoriesActivity extends AppCompatActivity {
 
     /**
      * Checks if category is empty and shows confirmation dialog for deleting a category
-     * Deletes from Firebase once confirmed
+     * Uses the category's itemCount so no read is needed, deletes from Firebase once confirmed
      */
 
-    public void showDeleteDialog(String catId) {
-        DatabaseReference itemsRef = FirebaseDatabase.getInstance()
-                .getReference("categories")
-                .child(catId)
-                .child("items");
-
-        itemsRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists() && snapshot.getChildrenCount() > 0) {
-                    Toast.makeText(CategoriesActivity.this,
-                            "Cannot delete: Category not empty",
-                            Toast.LENGTH_SHORT).show();
-                } else {
-                    new AlertDialog.Builder(CategoriesActivity.this)
-                            .setTitle("Delete Category")
-                            .setMessage("Delete this category?")
-                            .setPositiveButton("Delete", (dialog, which) -> {
-                                itemsRef.getParent().removeValue();
-                                Toast.makeText(CategoriesActivity.this,
-                                        "Category deleted", Toast.LENGTH_SHORT).show();
-                            })
-                            .setNegativeButton("Cancel", null)
-                            .show();
-                }
-            }
+    public void showDeleteDialog(String catId, long itemCount) {
+        if (itemCount > 0) {
+            Toast.makeText(this, "Cannot delete: Category not empty", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(CategoriesActivity.this,
-                        "Error: " + error.getMessage(),
-                        Toast.LENGTH_SHORT).show();
-            }
-        });
+        new AlertDialog.Builder(this)
+                .setTitle("Delete Category")
+                .setMessage("Delete this category?")
+                .setPositiveButton("Delete", (dialog, which) -> {
+                    // The category's item list is already empty, so only the metadata is removed
+                    FirebaseDatabase.getInstance()
+                            .getReference("categories")
+                            .child(catId)
+                            .removeValue();
+                    Toast.makeText(this, "Category deleted", Toast.LENGTH_SHORT).show();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
     /**
@@ -244,7 +250,6 @@ public class CategoriesActivity extends AppCompatActivity {
     protected void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
         outState.putString(KEY_SELECTED_CAT, selectedCategoryId);
-        outState.putStringArrayList(KEY_LIST_STATE, new ArrayList<>());
     }
 
     /**
@@ -258,96 +263,100 @@ public class CategoriesActivity extends AppCompatActivity {
     }
 
     /**
-     * Starts adapter listener
+     * Picks up the shared categories list, already loaded if another screen used it recently
      */
 
     @Override
     protected void onStart() {
         super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
+        if (listFactory != null) {
+            liveList = listState.attach(LIST_KEY, listFactory);
+            liveList.addListener(listListener);
         }
     }
 
     /**
-     * Stops adapter listener
+     * Releases the list, it stays attached for a grace period in case the user comes back
+     * When rotating the view model keeps it attached along with the scroll position
      */
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+        if (liveList != null) {
+            liveList.removeListener(listListener);
+            listState.detach(LIST_KEY, isChangingConfigurations());
+            liveList = null;
         }
+        listState.setLayoutState(rvCategories.getLayoutManager().onSaveInstanceState());
     }
 
     /**
      * ViewHolder binds category data to RecyclerView item
-     * Handles click for nav and edit/delete button
+     * Click listeners are set once per holder and act on the bound category
      */
 
-    static class CategoryViewHolder extends RecyclerView.ViewHolder {
+    static class CategoryViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
         TextView tvName;
         Button btnEdit, btnDelete;
 
-        String catId;
-        String creatorUid;
-        String catName;
+        final String currentUid;
+
+        Category category;
 
         /**
-         * Constructor inits view from item layout
+         * Constructor inits view from item layout and wires up the click listener
          */
-        CategoryViewHolder(@NonNull View itemView) {
+        CategoryViewHolder(@NonNull View itemView, String currentUid) {
             super(itemView);
+            this.currentUid = currentUid;
             tvName = itemView.findViewById(R.id.textViewCategoryName);
             btnEdit = itemView.findViewById(R.id.buttonEditCategory);
             btnDelete = itemView.findViewById(R.id.buttonDeleteCategory);
+
+            itemView.setOnClickListener(this);
+            btnEdit.setOnClickListener(this);
+            btnDelete.setOnClickListener(this);
         }
 
         /**
-         * Binds category data to views and sets up click listeners
+         * Binds category data to views
          * Shows edit/delete button for owner
          */
 
-        void bind(String catName, String catId, String creatorUid) {
-            this.catName = catName;
-            this.catId = catId;
-            this.creatorUid = creatorUid;
+        void bind(Category category) {
+            this.category = category;
+
+            tvName.setText(category.name != null ? category.name : "(no name)");
 
-            tvName.setText(catName != null ? catName : "(no name)");
+            boolean isOwner = category.creatorUid != null && category.creatorUid.equals(currentUid);
+            btnEdit.setVisibility(isOwner ? View.VISIBLE : View.GONE);
+            btnDelete.setVisibility(isOwner ? View.VISIBLE : View.GONE);
+        }
 
-            itemView.setOnClickListener(v -> {
-                CategoriesActivity activity = (CategoriesActivity) itemView.getContext();
+        /**
+         * Handles nav for the row and edit/delete for the owner's buttons
+         */
+
+        @Override
+        public void onClick(View v) {
+            if (category == null || getBindingAdapterPosition() == RecyclerView.NO_POSITION) {
+                return;
+            }
+            CategoriesActivity activity = (CategoriesActivity) itemView.getContext();
+            String catId = category.id;
+
+            int id = v.getId();
+            if (id == R.id.buttonEditCategory) {
+                activity.showUpdateDialog(catId, category.name);
+            } else if (id == R.id.buttonDeleteCategory) {
+                activity.showDeleteDialog(catId, category.itemCount);
+            } else {
                 activity.selectedCategoryId = catId;
 
-                Intent intent = new Intent(itemView.getContext(), ViewItemsActivity.class);
+                Intent intent = new Intent(activity, ViewItemsActivity.class);
                 intent.putExtra("CATEGORY_ID", catId);
-                itemView.getContext().startActivity(intent);
-            });
-
-            String currentUid = FirebaseAuth.getInstance().getCurrentUser() != null
-                    ? FirebaseAuth.getInstance().getCurrentUser().getUid()
-                    : null;
-            boolean isOwner = creatorUid != null && creatorUid.equals(currentUid);
-
-            if (isOwner) {
-                btnEdit.setVisibility(View.VISIBLE);
-                btnDelete.setVisibility(View.VISIBLE);
-
-                btnEdit.setOnClickListener(v -> {
-                    CategoriesActivity activity = (CategoriesActivity) itemView.getContext();
-                    activity.showUpdateDialog(catId, catName);
-                });
-
-                btnDelete.setOnClickListener(v -> {
-                    CategoriesActivity activity = (CategoriesActivity) itemView.getContext();
-                    activity.showDeleteDialog(catId);
-                });
-            } else {
-                btnEdit.setVisibility(View.GONE);
-                btnDelete.setVisibility(View.GONE);
-                btnEdit.setOnClickListener(null);
-                btnDelete.setOnClickListener(null);
+                activity.startActivity(intent);
             }
         }
     }
@@ -9,20 +9,24 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebase.ui.database.FirebaseRecyclerAdapter;
-import com.firebase.ui.database.FirebaseRecyclerOptions;
-import com.firebase.ui.database.SnapshotParser;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.GenericTypeIndicator;
 import com.google.firebase.database.Query;
 
-import java.util.Map;
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.data.ProfileResolver;
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Profile;
+import edu.uga.cs.tradeit.model.Transaction;
+
+import java.util.List;
+import java.util.Objects;
 
 /**
  * CompletedTransactionsActivity displays user's completed transactions
@@ -31,16 +35,36 @@ import java.util.Map;
 public class CompletedTransactionsActivity extends AppCompatActivity {
 
     private RecyclerView rvCompleted;
-    private FirebaseRecyclerAdapter<Map<String, Object>, CompletedViewHolder> adapter;
+    private SnapshotListAdapter<Transaction, CompletedViewHolder> adapter;
+    // Held between onStart and onStop, shared through the ListenerRegistry
+    private LiveSnapshotList<Transaction> liveList;
+    private String listKey;
+    private ListenerRegistry.Factory<LiveSnapshotList<Transaction>> listFactory;
+    private LiveSnapshotList.Listener<Transaction> listListener;
+    // Rows, scroll position and the live query survive rotation here
+    private ListStateViewModel listState;
 
     private static final String KEY_SELECTED_TRANS = "selected_trans_id";
 
     private String selectedTransId;
     private String currentUid;
 
+    // Rows rebind only when one of the transaction's fields changes
+    private static final DiffUtil.ItemCallback<Transaction> DIFF = new DiffUtil.ItemCallback<Transaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return Objects.equals(oldItem.id, newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return oldItem.toMap().equals(newItem.toMap());
+        }
+    };
+
     /**
      * Inits activity layout, RecyclerView and Firebase query
-     * Filters transactions for current user and sets up state restoration
+     * Reads from the current user's completed index and sets up state restoration
      */
 
     @Override
@@ -50,6 +74,7 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
 
         rvCompleted = findViewById(R.id.rvCompleted);
         rvCompleted.setLayoutManager(new LinearLayoutManager(this));
+        listState = new ViewModelProvider(this).get(ListStateViewModel.class);
 
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user == null) {
@@ -62,60 +87,29 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
             selectedTransId = savedInstanceState.getString(KEY_SELECTED_TRANS);
         }
 
-        Query query = FirebaseDatabase.getInstance()
-                .getReference("transactions")
-                .child("completed")
-                .orderByChild("completionDate");
+        // Only the current user's completed index, so no rows need to be filtered out on the client
+        Query query = IndexedQueries.USER_COMPLETED_BY_DATE.on(FirebaseDatabase.getInstance()
+                .getReference("users")
+                .child(currentUid)
+                .child("completed"));
 
-        SnapshotParser<Map<String, Object>> parser = new SnapshotParser<Map<String, Object>>() {
-            @NonNull
+        listKey = "users/" + currentUid + "/completed|completionDate";
+        listFactory = () -> new LiveSnapshotList<>(query, Transaction::fromSnapshot);
+
+        adapter = new SnapshotListAdapter<Transaction, CompletedViewHolder>(DIFF) {
             @Override
-            public Map<String, Object> parseSnapshot(@NonNull DataSnapshot snapshot) {
-                GenericTypeIndicator<Map<String, Object>> indicator =
-                        new GenericTypeIndicator<Map<String, Object>>() {};
-                return snapshot.getValue(indicator);
+            protected String keyOf(@NonNull Transaction row) {
+                return row.id;
             }
-        };
-
-        FirebaseRecyclerOptions<Map<String, Object>> options =
-                new FirebaseRecyclerOptions.Builder<Map<String, Object>>()
-                        .setQuery(query, parser)
-                        .build();
 
-        adapter = new FirebaseRecyclerAdapter<Map<String, Object>, CompletedViewHolder>(options) {
             @Override
-            protected void onBindViewHolder(@NonNull CompletedViewHolder holder,
-                                            int position,
-                                            @NonNull Map<String, Object> model) {
-
-                String transId = getRef(position).getKey();
-
-                String buyerUid = (String) model.get("buyerUid");
-                String sellerUid = (String) model.get("sellerUid");
-
-                boolean isMine = (buyerUid != null && buyerUid.equals(currentUid))
-                        || (sellerUid != null && sellerUid.equals(currentUid));
-
-                if (!isMine) {
-                    holder.itemView.setVisibility(View.GONE);
-                    ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
-                    if (params != null) {
-                        params.height = 0;
-                        holder.itemView.setLayoutParams(params);
-                    }
-                    return;
-                } else {
-                    holder.itemView.setVisibility(View.VISIBLE);
-                    ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
-                    if (params != null && params.height == 0) {
-                        params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-                        holder.itemView.setLayoutParams(params);
-                    }
-                }
+            public void onBindViewHolder(@NonNull CompletedViewHolder holder, int position) {
+                Transaction model = getItem(position);
+                long start = Metrics.begin("bind.completed");
+                holder.bind(model, currentUid);
+                Metrics.end("bind.completed", start);
 
-                holder.bind(model, transId);
-
-                if (transId != null && transId.equals(selectedTransId)) {
+                if (model.id != null && model.id.equals(selectedTransId)) {
                     holder.itemView.setSelected(true);
                 } else {
                     holder.itemView.setSelected(false);
@@ -132,6 +126,17 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
         };
 
         rvCompleted.setAdapter(adapter);
+        listListener = rows -> {
+            listState.setRows(rows);
+            adapter.submitList(rows);
+        };
+
+        // After a rotation the last rows are shown from memory and scrolled back into place
+        List<Transaction> cached = listState.getRows();
+        if (cached != null) {
+            adapter.submitList(cached);
+            rvCompleted.getLayoutManager().onRestoreInstanceState(listState.getLayoutState());
+        }
     }
 
     /**
@@ -155,26 +160,31 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
     }
 
     /**
-     * Starts adapter listener
+     * Picks up the shared list of completed transactions
      */
 
     @Override
     protected void onStart() {
         super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
+        if (listFactory != null) {
+            liveList = listState.attach(listKey, listFactory);
+            liveList.addListener(listListener);
         }
     }
 
     /**
-     * Stops adapter listener to avoid mem leaks
+     * Releases the list, the registry detaches it after its grace period
+     * When rotating the view model keeps it attached along with the scroll position
      */
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+        if (liveList != null) {
+            liveList.removeListener(listListener);
+            listState.detach(listKey, isChangingConfigurations());
+            liveList = null;
+            listState.setLayoutState(rvCompleted.getLayoutManager().onSaveInstanceState());
         }
     }
 
@@ -185,6 +195,9 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
         TextView tvItem, tvRole, tvDate;
         Button btnConfirm;
 
+        // The other party of the trade currently bound, null when the row has no trade
+        String counterpartyUid;
+
         /**
          * Constructor for initializing views from item layout
          */
@@ -202,14 +215,15 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
          * Binds transaction data to views and sets up click listeners
          */
 
-        void bind(Map<String, Object> data, String transId) {
-            String itemName = (String) data.get("itemName");
-            Object completionDateObj = data.get("completionDate");
+        void bind(Transaction trans, String uid) {
+            String transId = trans.id;
 
-            tvItem.setText(itemName != null ? itemName : "(no name)");
-            tvRole.setText("Transaction: Completed");
-            tvDate.setText(completionDateObj != null
-                    ? completionDateObj.toString()
+            tvItem.setText(trans.itemName != null ? trans.itemName : "(no name)");
+            boolean bought = uid.equals(trans.buyerUid);
+            showCounterparty(bought ? "Completed: bought from " : "Completed: sold to ",
+                    bought ? trans.sellerUid : trans.buyerUid);
+            tvDate.setText(trans.completionDate != null
+                    ? trans.completionDate.toString()
                     : "");
 
             itemView.setOnClickListener(v -> {
@@ -218,5 +232,21 @@ public class CompletedTransactionsActivity extends AppCompatActivity {
                 }
             });
         }
+
+        // Shows the other party's name, straight away when another row already looked it up
+        private void showCounterparty(String prefix, String otherUid) {
+            counterpartyUid = otherUid;
+            if (otherUid == null) {
+                tvRole.setText(prefix + Profile.display(null));
+                return;
+            }
+            tvRole.setText(prefix + "...");
+            ProfileResolver.getInstance().resolve(otherUid, (resolvedUid, profile) -> {
+                // The row may have been rebound to another trade while the name loaded
+                if (resolvedUid.equals(counterpartyUid)) {
+                    tvRole.setText(prefix + Profile.display(profile));
+                }
+            });
+        }
     }
 }
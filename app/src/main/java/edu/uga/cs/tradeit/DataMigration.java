@@ -0,0 +1,376 @@
+package edu.uga.cs.tradeit;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import edu.uga.cs.tradeit.data.Counters;
+import edu.uga.cs.tradeit.data.TradeRepository;
+import edu.uga.cs.tradeit.model.Price;
+import edu.uga.cs.tradeit.model.Profile;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DataMigration moves data written by older versions of the app into the current layout.
+ *
+ * The database version is kept at meta/schemaVersion so only the first client that sees old data
+ * does the work. A local flag skips even that read once this device knows the data is current.
+ * The rules only let the version go up by one, and each step writes it in the same update as its
+ * changes, so when two clients run the same step the second one's update is rejected whole.
+ */
+class DataMigration {
+    private static final String TAG = "DataMigration";
+    private static final String PREFS = "data_migration";
+    private static final String KEY_VERSION = "schema_version";
+
+    // Version 2 moved categories/{catId}/items to items/{catId} and added itemCount
+    // Version 3 added the numeric priceCents and isFree next to the free text price
+    // Version 4 added the itemsByKey index sorted by category, price bucket and recency
+    // Version 5 added the recentItems feed and the feedKey on each item
+    // Version 6 added the public profiles/{uid} with each user's display name
+    // Version 7 copied every pending and completed transaction into both users' own lists
+    // Version 8 added each user's counters and split the category itemCount into itemShards
+    static final int CURRENT_VERSION = 8;
+
+    /**
+     * Checks the database version and migrates it if it is behind
+     */
+    static void runIfNeeded(@NonNull Context context) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        if (prefs.getInt(KEY_VERSION, 1) >= CURRENT_VERSION) {
+            return;
+        }
+
+        // get() goes to the server first, the disk cache could still hold pre migration data
+        DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+        rootRef.child("meta").child("schemaVersion").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Version check failed", task.getException());
+                return;
+            }
+            Long version = task.getResult().getValue(Long.class);
+            migrateFrom(rootRef, prefs, version != null ? version.intValue() : 1);
+        });
+    }
+
+    // Runs the next step for the given version, each step calls back here with the version it
+    // wrote so steps run in order and a failed step stops the chain
+    private static void migrateFrom(DatabaseReference rootRef, SharedPreferences prefs, int version) {
+        if (version < 2) {
+            migrateCategoryItems(rootRef, prefs);
+        } else if (version < 3) {
+            migratePrices(rootRef, prefs);
+        } else if (version < 4) {
+            buildSortedIndex(rootRef, prefs);
+        } else if (version < 5) {
+            buildRecentFeed(rootRef, prefs);
+        } else if (version < 6) {
+            buildProfiles(rootRef, prefs);
+        } else if (version < 7) {
+            backfillUserTransactions(rootRef, prefs);
+        } else if (version < 8) {
+            buildCounters(rootRef, prefs);
+        } else {
+            prefs.edit().putInt(KEY_VERSION, CURRENT_VERSION).apply();
+        }
+    }
+
+    // Copies every item out of its category into items/{catId} and records the count,
+    // all in one update so a half migrated category is never visible
+    private static void migrateCategoryItems(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("categories").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", task.getException());
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot cat : task.getResult().getChildren()) {
+                String catId = cat.getKey();
+                DataSnapshot items = cat.child("items");
+
+                // Already in the new layout
+                if (cat.hasChild("itemCount") && !items.exists()) {
+                    continue;
+                }
+
+                for (DataSnapshot item : items.getChildren()) {
+                    updates.put("items/" + catId + "/" + item.getKey(), item.getValue());
+                }
+                updates.put("categories/" + catId + "/items", null);
+                // Added to, not set, so items updated clients posted to items/{catId} stay counted
+                updates.put("categories/" + catId + "/itemCount",
+                        ServerValue.increment(items.getChildrenCount()));
+            }
+            writeStep(rootRef, prefs, updates, 2);
+        });
+    }
+
+    // Parses every item's free text price into priceCents and isFree, in the category copy and
+    // the poster's copy. Prices that are not a plain amount are left without priceCents, so they
+    // still show but are left out of price sorted lists.
+    private static void migratePrices(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("items").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", task.getException());
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot cat : task.getResult().getChildren()) {
+                for (DataSnapshot item : cat.getChildren()) {
+                    if (item.hasChild("priceCents")) {
+                        continue;
+                    }
+                    Long cents = Price.parseCents(item.child("price").getValue(String.class));
+                    if (cents == null) {
+                        continue;
+                    }
+                    String posterUid = item.child("posterUid").getValue(String.class);
+                    putPrice(updates, "items/" + cat.getKey() + "/" + item.getKey(), cents);
+                    if (posterUid != null) {
+                        putPrice(updates, "users/" + posterUid + "/items/" + item.getKey(), cents);
+                    }
+                }
+            }
+
+            writeStep(rootRef, prefs, updates, 3);
+        });
+    }
+
+    // Writes an itemsByKey entry for every item that does not have one yet
+    private static void buildSortedIndex(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("items").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", task.getException());
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot cat : task.getResult().getChildren()) {
+                for (DataSnapshot item : cat.getChildren()) {
+                    Long postedDate = item.child("postedDate").getValue(Long.class);
+                    Object value = item.getValue();
+                    if (postedDate == null || !(value instanceof Map)) {
+                        continue;
+                    }
+                    Long priceCents = item.child("priceCents").getValue(Long.class);
+
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> entry = new HashMap<>((Map<String, Object>) value);
+                    entry.put("catId", cat.getKey());
+                    entry.put("sortKey", TradeRepository.sortKey(cat.getKey(), priceCents, postedDate));
+                    updates.put("itemsByKey/" + item.getKey(), entry);
+                }
+            }
+
+            writeStep(rootRef, prefs, updates, 4);
+        });
+    }
+
+    // Adds items posted within the feed's retention to recentItems and records each feed key on
+    // the item's copies and its itemsByKey entry. Older items are left out, they would be trimmed
+    // straight away.
+    private static void buildRecentFeed(DatabaseReference rootRef, SharedPreferences prefs) {
+        long cutoff = System.currentTimeMillis() - TradeRepository.RECENT_RETENTION_MS;
+        rootRef.child("items").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", task.getException());
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot cat : task.getResult().getChildren()) {
+                for (DataSnapshot item : cat.getChildren()) {
+                    Long postedDate = item.child("postedDate").getValue(Long.class);
+                    Object value = item.getValue();
+                    if (postedDate == null || postedDate < cutoff || item.hasChild("feedKey")
+                            || !(value instanceof Map)) {
+                        continue;
+                    }
+                    String feedKey = TradeRepository.feedKey(postedDate, item.getKey());
+                    String posterUid = item.child("posterUid").getValue(String.class);
+
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> entry = new HashMap<>((Map<String, Object>) value);
+                    entry.put("id", item.getKey());
+                    entry.put("catId", cat.getKey());
+                    entry.put("feedKey", feedKey);
+                    updates.put("recentItems/" + feedKey, entry);
+                    updates.put("items/" + cat.getKey() + "/" + item.getKey() + "/feedKey", feedKey);
+                    // Step 4 indexed every item with a postedDate, so the entry is there
+                    updates.put("itemsByKey/" + item.getKey() + "/feedKey", feedKey);
+                    if (posterUid != null) {
+                        updates.put("users/" + posterUid + "/items/" + item.getKey() + "/feedKey", feedKey);
+                    }
+                }
+            }
+
+            writeStep(rootRef, prefs, updates, 5);
+        });
+    }
+
+    // Gives every registered user without a profile one named after their email. Reads all of
+    // users once, after this the transaction screens only ever read profiles.
+    private static void buildProfiles(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("users").get().addOnCompleteListener(usersTask -> {
+            if (!usersTask.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", usersTask.getException());
+                return;
+            }
+            rootRef.child("profiles").get().addOnCompleteListener(profilesTask -> {
+                if (!profilesTask.isSuccessful()) {
+                    Log.e(TAG, "Migration read failed", profilesTask.getException());
+                    return;
+                }
+
+                DataSnapshot profiles = profilesTask.getResult();
+                Map<String, Object> updates = new HashMap<>();
+                for (DataSnapshot user : usersTask.getResult().getChildren()) {
+                    String email = user.child("email").getValue(String.class);
+                    if (email == null || profiles.hasChild(user.getKey())) {
+                        continue;
+                    }
+                    updates.put("profiles/" + user.getKey() + "/displayName",
+                            Profile.defaultDisplayName(email));
+                }
+                writeStep(rootRef, prefs, updates, 6);
+            });
+        });
+    }
+
+    // Copies each transaction written before the per user lists existed into the buyer's and the
+    // seller's pending or completed list, which is all the transaction screens read. Runs before
+    // the counters so they are counted from the filled in lists.
+    private static void backfillUserTransactions(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("transactions").get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", task.getException());
+                return;
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            putUserCopies(updates, task.getResult().child("pending"), "pending");
+            // Legacy completed records already carry the completionDate the history orders by
+            putUserCopies(updates, task.getResult().child("completed"), "completed");
+            writeStep(rootRef, prefs, updates, 7);
+        });
+    }
+
+    // Puts every transaction under users/{buyerUid} and users/{sellerUid} in the named list
+    private static void putUserCopies(Map<String, Object> updates, DataSnapshot transactions, String list) {
+        for (DataSnapshot trans : transactions.getChildren()) {
+            Object value = trans.getValue();
+            if (!(value instanceof Map)) {
+                continue;
+            }
+            String buyerUid = trans.child("buyerUid").getValue(String.class);
+            String sellerUid = trans.child("sellerUid").getValue(String.class);
+            if (buyerUid != null) {
+                updates.put("users/" + buyerUid + "/" + list + "/" + trans.getKey(), value);
+            }
+            if (sellerUid != null) {
+                updates.put("users/" + sellerUid + "/" + list + "/" + trans.getKey(), value);
+            }
+        }
+    }
+
+    // Counts every user's lists into their counters, and moves each category's single itemCount
+    // into its first shard. Everything is written as increments, so trades made by updated clients
+    // between these reads and the write are kept. A trade landing between the users read and the
+    // counters read is the one change that can leave a counter off by one, that window is two
+    // back to back reads and is accepted.
+    private static void buildCounters(DatabaseReference rootRef, SharedPreferences prefs) {
+        rootRef.child("users").get().addOnCompleteListener(usersTask -> {
+            if (!usersTask.isSuccessful()) {
+                Log.e(TAG, "Migration read failed", usersTask.getException());
+                return;
+            }
+            rootRef.child("counters").get().addOnCompleteListener(countersTask -> {
+                if (!countersTask.isSuccessful()) {
+                    Log.e(TAG, "Migration read failed", countersTask.getException());
+                    return;
+                }
+                rootRef.child("categories").get().addOnCompleteListener(categoriesTask -> {
+                    if (!categoriesTask.isSuccessful()) {
+                        Log.e(TAG, "Migration read failed", categoriesTask.getException());
+                        return;
+                    }
+
+                    Map<String, Object> updates = new HashMap<>();
+                    DataSnapshot counters = countersTask.getResult();
+                    for (DataSnapshot user : usersTask.getResult().getChildren()) {
+                        DataSnapshot current = counters.child(user.getKey());
+                        String path = Counters.userPath(user.getKey());
+                        putCount(updates, path, Counters.LISTED, user.child("items"), current);
+                        putCount(updates, path, Counters.PENDING, user.child("pending"), current);
+                        putCount(updates, path, Counters.COMPLETED, user.child("completed"), current);
+                    }
+                    for (DataSnapshot cat : categoriesTask.getResult().getChildren()) {
+                        Long itemCount = cat.child("itemCount").getValue(Long.class);
+                        if (itemCount == null) {
+                            continue;
+                        }
+                        updates.put("categories/" + cat.getKey() + "/itemShards/0",
+                                ServerValue.increment(itemCount));
+                        updates.put("categories/" + cat.getKey() + "/itemCount", null);
+                    }
+                    writeStep(rootRef, prefs, updates, 8);
+                });
+            });
+        });
+    }
+
+    // Moves the counter from the value read to the list's size by the difference between them
+    private static void putCount(Map<String, Object> updates, String path, String counter,
+                                 DataSnapshot list, DataSnapshot current) {
+        Long value = current.child(counter).getValue(Long.class);
+        long delta = list.getChildrenCount() - (value != null ? value : 0);
+        if (delta != 0) {
+            updates.put(path + "/" + counter, ServerValue.increment(delta));
+        }
+    }
+
+    private static void putPrice(Map<String, Object> updates, String itemPath, long cents) {
+        updates.put(itemPath + "/priceCents", cents);
+        updates.put(itemPath + "/isFree", cents == 0);
+    }
+
+    // Writes one step's changes together with the version they bring the data to
+    private static void writeStep(DatabaseReference rootRef, SharedPreferences prefs,
+                                  Map<String, Object> updates, int version) {
+        updates.put("meta/schemaVersion", version);
+
+        rootRef.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                Log.d(TAG, "Migrated to version " + version);
+                migrateFrom(rootRef, prefs, version);
+            } else {
+                Log.e(TAG, "Migration failed: " + error.getMessage());
+                continueIfMigratedElsewhere(rootRef, prefs, version);
+            }
+        });
+    }
+
+    // A rejected step is usually another client having written it first. Carries on from the
+    // version that client wrote, but never retries the same step, which could fail forever.
+    private static void continueIfMigratedElsewhere(DatabaseReference rootRef, SharedPreferences prefs,
+                                                    int version) {
+        rootRef.child("meta").child("schemaVersion").get().addOnSuccessListener(snapshot -> {
+            Long current = snapshot.getValue(Long.class);
+            if (current != null && current >= version) {
+                migrateFrom(rootRef, prefs, current.intValue());
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package edu.uga.cs.tradeit;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one background thread that turns raw snapshots into rows. Work runs in the order it is
+ * submitted, so events for the same list are applied in the order the database sent them.
+ */
+final class DecodeThread {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "snapshot-decode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private DecodeThread() {
+    }
+
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    static void postToMain(Runnable task) {
+        MAIN.post(task);
+    }
+}
@@ -0,0 +1,25 @@
+package edu.uga.cs.tradeit;
+
+import java.text.DateFormat;
+import java.util.Date;
+
+/**
+ * Shared formatters for list rows. DateFormat is expensive to create and not thread safe,
+ * so each thread keeps one instance instead of every bind building a new one.
+ */
+final class Formatters {
+
+    private static final ThreadLocal<DateFormat> DATE_TIME = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return DateFormat.getDateTimeInstance();
+        }
+    };
+
+    private Formatters() {
+    }
+
+    static String dateTime(long millis) {
+        return DATE_TIME.get().format(new Date(millis));
+    }
+}
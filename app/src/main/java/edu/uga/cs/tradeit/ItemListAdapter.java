@@ -0,0 +1,137 @@
+package edu.uga.cs.tradeit;
+
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Item;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Adapter for item rows, shared by the category item list and the user's own item list
+ */
+class ItemListAdapter extends SnapshotListAdapter<Item, ViewItemsActivity.ItemViewHolder>
+        implements ListPreloader.PreloadModelProvider<Item> {
+
+    // Rows past the visible ones whose thumbnails are fetched ahead of the scroll
+    private static final int PRELOAD_ROWS = 10;
+
+    // Only the fields a row shows or acts on, so an updatedDate bump alone does not rebind
+    private static final DiffUtil.ItemCallback<Item> DIFF = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.id, newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.name, newItem.name)
+                    && Objects.equals(oldItem.price, newItem.price)
+                    && Objects.equals(oldItem.priceCents, newItem.priceCents)
+                    && Objects.equals(oldItem.isFree, newItem.isFree)
+                    && Objects.equals(oldItem.postedDate, newItem.postedDate)
+                    && Objects.equals(oldItem.posterUid, newItem.posterUid)
+                    && Objects.equals(oldItem.catId, newItem.catId)
+                    && Objects.equals(oldItem.thumbUrl, newItem.thumbUrl)
+                    && Objects.equals(oldItem.photoUrl, newItem.photoUrl)
+                    && Objects.equals(oldItem.feedKey, newItem.feedKey);
+        }
+    };
+
+    private final String catId;
+    private final String currentUid;
+
+    // Set once the list is attached to a RecyclerView with a preloader
+    private RequestManager preloadGlide;
+    private int thumbPx;
+
+    /**
+     * @param catId category every row belongs to, or null to use each item's own catId
+     */
+    ItemListAdapter(@Nullable String catId, @Nullable String currentUid) {
+        super(DIFF);
+        this.catId = catId;
+        this.currentUid = currentUid;
+    }
+
+    /**
+     * Loads a row's thumbnail. Rows and the preloader both build the request here, so a
+     * preloaded thumbnail is found in the memory cache when its row binds.
+     */
+    @NonNull
+    static RequestBuilder<Drawable> thumbnail(@NonNull RequestManager glide, @NonNull String url,
+                                              int sizePx) {
+        return glide.load(url).override(sizePx).centerCrop();
+    }
+
+    /**
+     * Starts fetching thumbnails for the rows just past the visible ones as the list scrolls
+     */
+    void attachThumbnailPreloader(@NonNull RecyclerView recyclerView) {
+        preloadGlide = Glide.with(recyclerView);
+        thumbPx = recyclerView.getResources().getDimensionPixelSize(R.dimen.item_thumb_size);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(preloadGlide, this,
+                new FixedPreloadSizeProvider<>(thumbPx, thumbPx), PRELOAD_ROWS));
+    }
+
+    @NonNull
+    @Override
+    public List<Item> getPreloadItems(int position) {
+        if (position >= getItemCount()) {
+            return Collections.emptyList();
+        }
+        Item item = getItem(position);
+        return item.thumbUrl != null ? Collections.singletonList(item) : Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Item item) {
+        return thumbnail(preloadGlide, item.thumbUrl, thumbPx);
+    }
+
+    @Override
+    protected String keyOf(@NonNull Item row) {
+        return row.id;
+    }
+
+    @NonNull
+    @Override
+    public ViewItemsActivity.ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_layout, parent, false);
+        return new ViewItemsActivity.ItemViewHolder(view, currentUid);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewItemsActivity.ItemViewHolder holder, int position) {
+        Item item = getItem(position);
+        long start = Metrics.begin("bind.item");
+        holder.bind(item, catId != null ? catId : item.catId);
+        Metrics.end("bind.item", start);
+    }
+
+    // Stops a recycled row's load so its old thumbnail never lands on a new row
+    @Override
+    public void onViewRecycled(@NonNull ViewItemsActivity.ItemViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.clearThumbnail();
+    }
+}
@@ -0,0 +1,458 @@
+package edu.uga.cs.tradeit;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.firebase.ui.database.SnapshotParser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ItemPager loads a list ordered by one numeric child in fixed size pages, so the first rows show
+ * without downloading the whole node. The default order is postedDate newest first.
+ *
+ * Each page is a live query. The last page is a window of PAGE_SIZE rows that starts just after
+ * the last row of the page above it. When a page below it gets loaded, the page is pinned to a
+ * fixed range so items being added or removed never leave a gap or a duplicate between pages.
+ * An optional value range (for example a price range) bounds the first and the last page.
+ * Page snapshots are decoded on the DecodeThread and merged back on the main thread. Decoding is
+ * timed as "parse.page" and the wait for a new page's first rows as "query.page".
+ *
+ * A pager is shared through the ListenerRegistry, so listeners come and go while it stays loaded.
+ */
+class ItemPager<T> implements ListenerRegistry.Shared {
+
+    private static final String TAG = "ItemPager";
+
+    // Rows per page
+    static final int PAGE_SIZE = 20;
+    // How close to the end of the list the user can scroll before the next page is requested
+    static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Which child the rows are ordered by, in which direction, and an optional inclusive range.
+     * The child and the range values are either all numbers or all strings. The child always
+     * comes from an IndexedQueries spec, so it has an index, and a null spec orders by key.
+     * Orders are only made by the factories below, ItemPagerOrderTest checks every one of them.
+     */
+    static final class Order {
+        final IndexedQueries.Spec spec;
+        final String field;
+        final boolean descending;
+        final Object min;
+        final Object max;
+
+        private Order(IndexedQueries.Spec spec, boolean descending, Object min, Object max) {
+            this.spec = spec;
+            this.field = spec != null ? spec.orderBy : null;
+            this.descending = descending;
+            this.min = min;
+            this.max = max;
+        }
+
+        static Order newestFirst() {
+            return new Order(IndexedQueries.ITEMS_BY_DATE, true, null, null);
+        }
+
+        /**
+         * Every row by priceCents within the optional inclusive range, highest first if descending
+         */
+        static Order byPrice(boolean descending, @Nullable Double min, @Nullable Double max) {
+            return new Order(IndexedQueries.ITEMS_BY_PRICE, descending, min, max);
+        }
+
+        /**
+         * Every row in ascending key order, for lists whose keys are already sort keys
+         */
+        static Order byKey() {
+            return new Order(null, false, null, null);
+        }
+
+        /**
+         * Every row whose string child starts with the prefix, in ascending order
+         */
+        static Order prefix(@NonNull IndexedQueries.Spec spec, @NonNull String prefix) {
+            return new Order(spec, false, prefix, prefix + "\uf8ff");
+        }
+    }
+
+    // Which edge of a range a cursor value sets
+    private static final int START_AT = 0;
+    private static final int START_AFTER = 1;
+    private static final int END_AT = 2;
+    private static final int END_BEFORE = 3;
+
+    /**
+     * Called on the main thread every time the loaded rows change
+     */
+    interface Listener {
+        void onRowsChanged();
+    }
+
+    /**
+     * Told the key of every row that left a page because it was removed from the database
+     */
+    interface RemovalListener {
+        void onRemoved(@NonNull String key);
+    }
+
+    private final Query baseQuery;
+    private final Order order;
+    private final SnapshotParser<T> parser;
+    private final List<Listener> listeners = new ArrayList<>();
+    private RemovalListener removalListener;
+
+    private final List<Page> pages = new ArrayList<>();
+    private final List<T> rows = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    private boolean listening;
+    private boolean endReached;
+
+    /**
+     * @param node reference to the list, the pager adds the ordering and limits
+     */
+    ItemPager(@NonNull Query node, @NonNull Order order, @NonNull SnapshotParser<T> parser) {
+        this.baseQuery = order.spec != null ? order.spec.on(node) : node.orderByKey();
+        this.order = order;
+        this.parser = parser;
+    }
+
+    /**
+     * Registry key for a pager over the node in the given order
+     */
+    static String keyFor(@NonNull Query node, @NonNull Order order) {
+        return "pager:" + node.getRef().toString() + "|" + order.field + "|" + order.descending
+                + "|" + order.min + "|" + order.max;
+    }
+
+    /**
+     * Adds a listener, told straight away if rows are already loaded
+     */
+    void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+        if (!pages.isEmpty() && pages.get(0).loaded) {
+            listener.onRowsChanged();
+        }
+    }
+
+    void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void setRemovalListener(RemovalListener removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    T get(int position) {
+        return rows.get(position);
+    }
+
+    String getKey(int position) {
+        return keys.get(position);
+    }
+
+    /**
+     * Immutable copy of the loaded rows for handing to a ListAdapter
+     */
+    List<T> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(rows));
+    }
+
+    /**
+     * Attaches every loaded page, loading the first page if nothing has been loaded yet
+     */
+    @Override
+    public void start() {
+        if (listening) {
+            return;
+        }
+        listening = true;
+        if (pages.isEmpty()) {
+            pages.add(new Page(null, null));
+        }
+        for (Page page : pages) {
+            page.attach();
+        }
+    }
+
+    /**
+     * Detaches every page but keeps the loaded rows so they can be shown again on start
+     */
+    @Override
+    public void stop() {
+        if (!listening) {
+            return;
+        }
+        listening = false;
+        for (Page page : pages) {
+            page.detach();
+        }
+    }
+
+    /**
+     * Requests the next page. Ignored while the last page is still loading or when there is
+     * nothing left.
+     */
+    void loadNextPage() {
+        if (!listening || endReached || pages.isEmpty()) {
+            return;
+        }
+        Page last = pages.get(pages.size() - 1);
+        if (!last.loaded || last.tailValue == null) {
+            return;
+        }
+
+        // Keys are unique, so ordering by key needs no tie breaking key on the cursor
+        Object cursorValue = last.tailValue;
+        String cursorKey = order.field != null ? last.tailKey : null;
+
+        // The current last page stops sliding so the new page can start right below it
+        last.pin(cursorValue, cursorKey);
+
+        Page next = new Page(cursorValue, cursorKey);
+        pages.add(next);
+        next.attach();
+    }
+
+    // Flattens every page into the row list in display order
+    private void rebuildRows() {
+        rows.clear();
+        keys.clear();
+        for (Page page : pages) {
+            rows.addAll(page.rows);
+            keys.addAll(page.keys);
+        }
+
+        Page last = pages.get(pages.size() - 1);
+        endReached = last.loaded && !last.pinned && last.keys.size() < PAGE_SIZE;
+
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onRowsChanged();
+        }
+    }
+
+    // Runs on the DecodeThread. Children come back in ascending order, so for a descending list
+    // each one is put in front. The tail is the last row in display order with a usable value.
+    private DecodedPage<T> decode(DataSnapshot snapshot) {
+        long start = Metrics.begin("parse.page");
+        DecodedPage<T> decoded = new DecodedPage<>();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            Object value = order.field != null ? child.child(order.field).getValue() : child.getKey();
+            if ((value instanceof Number || value instanceof String)
+                    && (!order.descending || decoded.tailKey == null)) {
+                decoded.tailValue = value instanceof Number ? ((Number) value).doubleValue() : value;
+                decoded.tailKey = child.getKey();
+            }
+            if (order.descending) {
+                decoded.rows.add(0, parser.parseSnapshot(child));
+                decoded.keys.add(0, child.getKey());
+            } else {
+                decoded.rows.add(parser.parseSnapshot(child));
+                decoded.keys.add(child.getKey());
+            }
+        }
+        Metrics.end("parse.page", start);
+        return decoded;
+    }
+
+    // Result of decoding one page snapshot off the main thread
+    private static class DecodedPage<T> {
+        final List<T> rows = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        Object tailValue;
+        String tailKey;
+    }
+
+    // Applies one edge of a range, the value is a Double or a String and the key is optional
+    private static Query bound(Query q, int edge, Object value, @Nullable String key) {
+        if (value instanceof String) {
+            String v = (String) value;
+            switch (edge) {
+                case START_AT:
+                    return key != null ? q.startAt(v, key) : q.startAt(v);
+                case START_AFTER:
+                    return key != null ? q.startAfter(v, key) : q.startAfter(v);
+                case END_AT:
+                    return key != null ? q.endAt(v, key) : q.endAt(v);
+                default:
+                    return key != null ? q.endBefore(v, key) : q.endBefore(v);
+            }
+        }
+        double v = ((Number) value).doubleValue();
+        switch (edge) {
+            case START_AT:
+                return key != null ? q.startAt(v, key) : q.startAt(v);
+            case START_AFTER:
+                return key != null ? q.startAfter(v, key) : q.startAfter(v);
+            case END_AT:
+                return key != null ? q.endAt(v, key) : q.endAt(v);
+            default:
+                return key != null ? q.endBefore(v, key) : q.endBefore(v);
+        }
+    }
+
+    /**
+     * One page of rows. The range is everything after the cursor (exclusive) in display order,
+     * either capped at PAGE_SIZE rows or, once pinned, up to the pin (inclusive). The first page
+     * has no cursor and starts at the edge of the order's range.
+     */
+    private class Page implements ValueEventListener {
+        final Object cursorValue;
+        final String cursorKey;
+
+        boolean pinned;
+        Object pinValue;
+        String pinKey;
+
+        Query query;
+        boolean attached;
+        boolean loaded;
+
+        Object tailValue;
+        String tailKey;
+
+        int loadGeneration;
+
+        // Running from attach until the page's first rows are shown
+        Metrics.Timer loadTimer;
+
+        final List<T> rows = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+
+        Page(Object cursorValue, String cursorKey) {
+            this.cursorValue = cursorValue;
+            this.cursorKey = cursorKey;
+            this.query = buildQuery();
+        }
+
+        // A descending list reads its pages from the top of the index down, so the cursor is the
+        // upper bound and the pin the lower one. An ascending list is the mirror image.
+        private Query buildQuery() {
+            Query q = baseQuery;
+            if (order.descending) {
+                if (pinned) {
+                    q = bound(q, START_AT, pinValue, pinKey);
+                } else if (order.min != null) {
+                    q = bound(q, START_AT, order.min, null);
+                }
+                if (cursorValue != null) {
+                    q = bound(q, END_BEFORE, cursorValue, cursorKey);
+                } else if (order.max != null) {
+                    q = bound(q, END_AT, order.max, null);
+                }
+                return pinned ? q : q.limitToLast(PAGE_SIZE);
+            }
+
+            if (cursorValue != null) {
+                q = bound(q, START_AFTER, cursorValue, cursorKey);
+            } else if (order.min != null) {
+                q = bound(q, START_AT, order.min, null);
+            }
+            if (pinned) {
+                q = bound(q, END_AT, pinValue, pinKey);
+            } else if (order.max != null) {
+                q = bound(q, END_AT, order.max, null);
+            }
+            return pinned ? q : q.limitToFirst(PAGE_SIZE);
+        }
+
+        void attach() {
+            if (!attached) {
+                attached = true;
+                if (!loaded) {
+                    loadTimer = Metrics.start("query.page");
+                }
+                query.addValueEventListener(this);
+            }
+        }
+
+        void detach() {
+            if (attached) {
+                attached = false;
+                if (loadTimer != null) {
+                    loadTimer.cancel();
+                    loadTimer = null;
+                }
+                query.removeEventListener(this);
+            }
+        }
+
+        // Swaps the sliding window for a fixed range, the data is already cached so rows stay put
+        void pin(Object value, String key) {
+            boolean wasAttached = attached;
+            detach();
+            pinned = true;
+            pinValue = value;
+            pinKey = key;
+            query = buildQuery();
+            if (wasAttached) {
+                attach();
+            }
+        }
+
+        // The snapshot is decoded on the DecodeThread and swapped in on the main thread,
+        // unless a newer snapshot for this page arrived in the meantime
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            int gen = ++loadGeneration;
+            DecodeThread.execute(() -> {
+                DecodedPage<T> decoded = decode(snapshot);
+                DecodeThread.postToMain(() -> {
+                    if (gen != loadGeneration) {
+                        return;
+                    }
+                    reportRemovals(decoded);
+                    rows.clear();
+                    rows.addAll(decoded.rows);
+                    keys.clear();
+                    keys.addAll(decoded.keys);
+                    tailValue = decoded.tailValue;
+                    tailKey = decoded.tailKey;
+                    loaded = true;
+                    if (loadTimer != null) {
+                        loadTimer.finish();
+                        loadTimer = null;
+                    }
+                    rebuildRows();
+                });
+            });
+        }
+
+        // A pinned or partly filled page holds its whole range, so a row missing from the new
+        // snapshot was deleted rather than pushed out of a full window
+        private void reportRemovals(DecodedPage<T> decoded) {
+            if (removalListener == null || (!pinned && decoded.keys.size() >= PAGE_SIZE)) {
+                return;
+            }
+            Set<String> current = new HashSet<>(decoded.keys);
+            for (String key : keys) {
+                if (!current.contains(key)) {
+                    removalListener.onRemoved(key);
+                }
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Page load cancelled: " + error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.uga.cs.tradeit;
+
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModel;
+
+import java.util.List;
+
+/**
+ * ListStateViewModel keeps a list screen's rows, scroll position and live query across a
+ * configuration change.
+ *
+ * When the activity stops because it is being recreated, its hold on the shared list moves here
+ * instead of being released, so the query never detaches. The new activity renders the last rows
+ * straight from memory before it even starts listening.
+ */
+public class ListStateViewModel extends ViewModel {
+
+    // Registry key this model holds for an activity being recreated
+    private String heldKey;
+
+    private List<?> rows;
+    private Parcelable layoutState;
+
+    /**
+     * Acquires the shared list and drops any hold kept across the last recreation
+     */
+    @NonNull
+    <S extends ListenerRegistry.Shared> S attach(@NonNull String key,
+                                                 @NonNull ListenerRegistry.Factory<S> factory) {
+        S shared = ListenerRegistry.getInstance().acquire(key, factory);
+        releaseHeld();
+        return shared;
+    }
+
+    /**
+     * Releases the shared list, or keeps hold of it when the activity is only being recreated
+     */
+    void detach(@NonNull String key, boolean changingConfigurations) {
+        if (changingConfigurations) {
+            releaseHeld();
+            heldKey = key;
+        } else {
+            ListenerRegistry.getInstance().release(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    <T> List<T> getRows() {
+        return (List<T>) rows;
+    }
+
+    void setRows(@Nullable List<?> rows) {
+        this.rows = rows;
+    }
+
+    @Nullable
+    Parcelable getLayoutState() {
+        return layoutState;
+    }
+
+    void setLayoutState(@Nullable Parcelable layoutState) {
+        this.layoutState = layoutState;
+    }
+
+    private void releaseHeld() {
+        if (heldKey != null) {
+            ListenerRegistry.getInstance().release(heldKey);
+            heldKey = null;
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        releaseHeld();
+    }
+}
@@ -0,0 +1,102 @@
+package edu.uga.cs.tradeit;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ListenerRegistry shares one live query per key across every screen in the process.
+ *
+ * Screens acquire a list in onStart and release it in onStop. The first acquire attaches the
+ * query and later ones reuse it with the rows it already has. When the last screen releases it
+ * the query stays attached for GRACE_MS, so going back and forth between screens or rotating
+ * picks the same list up again without downloading anything. Only used on the main thread.
+ */
+final class ListenerRegistry {
+
+    // How long a list stays attached after its last screen released it
+    static final long GRACE_MS = 30_000;
+
+    /**
+     * A live query the registry can attach and detach
+     */
+    interface Shared {
+        void start();
+
+        void stop();
+    }
+
+    /**
+     * Creates the shared list the first time its key is acquired
+     */
+    interface Factory<S extends Shared> {
+        @NonNull
+        S create();
+    }
+
+    private static ListenerRegistry instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private ListenerRegistry() {
+    }
+
+    static ListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new ListenerRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the list for the key, creating and attaching it if no screen holds it and it is
+     * not in its grace period. Every acquire needs a matching release.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    <S extends Shared> S acquire(@NonNull String key, @NonNull Factory<S> factory) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, factory.create());
+            entries.put(key, entry);
+            entry.shared.start();
+        }
+        mainHandler.removeCallbacks(entry.expire);
+        entry.refCount++;
+        return (S) entry.shared;
+    }
+
+    /**
+     * Gives up one hold on the key, the list is detached once the grace period passes unclaimed
+     */
+    void release(@NonNull String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.refCount == 0) {
+            return;
+        }
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            mainHandler.postDelayed(entry.expire, GRACE_MS);
+        }
+    }
+
+    private final class Entry {
+        final Shared shared;
+        int refCount;
+
+        final Runnable expire;
+
+        Entry(String key, Shared shared) {
+            this.shared = shared;
+            this.expire = () -> {
+                entries.remove(key);
+                shared.stop();
+            };
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package edu.uga.cs.tradeit;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.firebase.ui.database.SnapshotParser;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LiveSnapshotList keeps an ordered, parsed copy of a query's children and hands out immutable
+ * snapshots of it for a ListAdapter to diff.
+ *
+ * Child events only capture the raw snapshot on the main thread. Parsing and placing the row
+ * happen on the DecodeThread, and a finished list is posted back once every queued event for
+ * this list has been applied, so a large sync turns into one list instead of hundreds.
+ *
+ * Several screens can listen to one list, usually through the ListenerRegistry. A listener added
+ * while the list is attached gets the latest list straight away.
+ *
+ * Each parse is timed as "parse.list" and the wait from attaching to the first list as "query.list".
+ */
+class LiveSnapshotList<T> implements ChildEventListener, ListenerRegistry.Shared {
+
+    private static final String TAG = "LiveSnapshotList";
+
+    /**
+     * Receives a new immutable list on the main thread every time the query's children change
+     */
+    interface Listener<T> {
+        void onListChanged(@NonNull List<T> rows);
+    }
+
+    /**
+     * Told the key of every child removed from the query, called on the DecodeThread
+     */
+    interface RemovalListener {
+        void onRemoved(@NonNull String key);
+    }
+
+    private final Query query;
+    private final SnapshotParser<T> parser;
+
+    // Only touched on the DecodeThread
+    private final List<String> keys = new ArrayList<>();
+    private final List<T> rows = new ArrayList<>();
+
+    // Events queued on the DecodeThread that have not been applied yet
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    // Bumped on every stop so lists built for an earlier attach are dropped
+    private int generation;
+
+    // Main thread only
+    private final List<Listener<T>> listeners = new ArrayList<>();
+    private boolean attached;
+    private List<T> latest;
+    // Running from attach until the first list is published
+    private Metrics.Timer attachTimer;
+
+    private volatile RemovalListener removalListener;
+
+    LiveSnapshotList(@NonNull Query query, @NonNull SnapshotParser<T> parser) {
+        this.query = query;
+        this.parser = parser;
+    }
+
+    void setRemovalListener(RemovalListener removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    void addListener(@NonNull Listener<T> listener) {
+        listeners.add(listener);
+        if (latest != null) {
+            listener.onListChanged(latest);
+        }
+    }
+
+    void removeListener(@NonNull Listener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Attaches to the query, the current children are delivered as one list
+     */
+    @Override
+    public void start() {
+        if (attached) {
+            return;
+        }
+        attached = true;
+        attachTimer = Metrics.start("query.list");
+        query.addChildEventListener(this);
+    }
+
+    /**
+     * Detaches from the query. Attaching again replays every child so the copy is dropped.
+     */
+    @Override
+    public void stop() {
+        if (!attached) {
+            return;
+        }
+        query.removeEventListener(this);
+        attached = false;
+        // A query with no children never publishes, its timer is dropped here
+        attachTimer.cancel();
+        latest = null;
+        generation++;
+        // Queued behind any events still in flight, which will be dropped by the generation check
+        DecodeThread.execute(() -> {
+            keys.clear();
+            rows.clear();
+        });
+    }
+
+    // Runs the change on the DecodeThread and publishes once the queue for this list drains
+    private void enqueue(Runnable change) {
+        int gen = generation;
+        pendingEvents.incrementAndGet();
+        DecodeThread.execute(() -> {
+            change.run();
+            if (pendingEvents.decrementAndGet() == 0) {
+                List<T> result = Collections.unmodifiableList(new ArrayList<>(rows));
+                DecodeThread.postToMain(() -> {
+                    if (gen == generation && attached) {
+                        attachTimer.finish();
+                        latest = result;
+                        for (Listener<T> listener : new ArrayList<>(listeners)) {
+                            listener.onListChanged(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private T parse(DataSnapshot snapshot) {
+        long start = Metrics.begin("parse.list");
+        try {
+            return parser.parseSnapshot(snapshot);
+        } finally {
+            Metrics.end("parse.list", start);
+        }
+    }
+
+    // Position right after the previous sibling, or the front when there is none
+    private int positionAfter(@Nullable String previousChildName) {
+        return previousChildName == null ? 0 : indexOf(previousChildName) + 1;
+    }
+
+    // The initial sync adds children in order, each after the last key, so checking the tail first
+    // keeps loading n rows linear instead of a scan per row
+    private int indexOf(String key) {
+        int last = keys.size() - 1;
+        if (last >= 0 && keys.get(last).equals(key)) {
+            return last;
+        }
+        return keys.indexOf(key);
+    }
+
+    @Override
+    public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+        enqueue(() -> {
+            int index = positionAfter(previousChildName);
+            keys.add(index, snapshot.getKey());
+            rows.add(index, parse(snapshot));
+        });
+    }
+
+    @Override
+    public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+        enqueue(() -> {
+            int index = indexOf(snapshot.getKey());
+            if (index >= 0) {
+                rows.set(index, parse(snapshot));
+            }
+        });
+    }
+
+    @Override
+    public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+        enqueue(() -> {
+            int index = indexOf(snapshot.getKey());
+            if (index >= 0) {
+                keys.remove(index);
+                rows.remove(index);
+                RemovalListener removed = removalListener;
+                if (removed != null) {
+                    removed.onRemoved(snapshot.getKey());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+        enqueue(() -> {
+            int from = indexOf(snapshot.getKey());
+            if (from < 0) {
+                return;
+            }
+            keys.remove(from);
+            T row = rows.remove(from);
+
+            int to = positionAfter(previousChildName);
+            keys.add(to, snapshot.getKey());
+            rows.add(to, row);
+        });
+    }
+
+    @Override
+    public void onCancelled(@NonNull DatabaseError error) {
+        Log.e(TAG, "Listener cancelled: " + error.getMessage());
+    }
+}
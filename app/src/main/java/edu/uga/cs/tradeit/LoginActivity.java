@@ -21,11 +21,10 @@ import com.google.firebase.auth.FirebaseAuthException;
 public class LoginActivity extends AppCompatActivity {
     private static final String TAG = "LoginActivity";
     private EditText etEmail, etPassword;
-    private FirebaseAuth mAuth;
 
     /**
-     * Inits activity layout and Firebase Auth
-     * Sets up button clock listeners
+     * Inits activity layout
+     * Sets up button clock listeners, Firebase Auth is only needed once the user logs in
      */
 
     @Override
@@ -40,7 +39,6 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        mAuth = FirebaseAuth.getInstance();
         etEmail = findViewById(R.id.etEmail);
         etPassword = findViewById(R.id.etPassword);
 
@@ -83,7 +81,7 @@ public class LoginActivity extends AppCompatActivity {
         }
 
         Log.d(TAG, "Attempting login for: " + email);
-        mAuth.signInWithEmailAndPassword(email, password)
+        FirebaseAuth.getInstance().signInWithEmailAndPassword(email, password)
                 .addOnCompleteListener(this, new OnCompleteListener<AuthResult>() {
                     @Override
                     public void onComplete(@NonNull Task<AuthResult> task) {
@@ -7,19 +7,46 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Button;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
 import edu.uga.cs.tradeit.R;
+import edu.uga.cs.tradeit.data.Counters;
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Item;
+import edu.uga.cs.tradeit.search.ItemSearchIndex;
 
 /**
  * MainActivity serves as main dashboard post login and allows for nav to various sections
  * includes logout and checks for auth state
+ * Also shows the latest listings across every category from the recentItems feed
+ * and the user's counts on the buttons, read from their counters in one small read
  */
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
+    // The feed stops paging after this many rows so it never holds the whole retention window
+    private static final int FEED_MAX_ROWS = 200;
     private FirebaseAuth mAuth;
+    private Button btnMyItems, btnPending, btnCompleted;
+    private DatabaseReference countersRef;
+    private RecyclerView rvRecent;
+    private ItemListAdapter recentAdapter;
+    // Held between onStart and onStop through the ListenerRegistry
+    private ItemPager<Item> recentPager;
+    private String recentKey;
+    private ListenerRegistry.Factory<ItemPager<Item>> recentFactory;
+    private final ItemPager.Listener recentListener = () -> {
+        if (recentAdapter != null && recentPager != null) {
+            recentAdapter.submitList(recentPager.snapshot());
+        }
+    };
 
     /**
      * Initialized activity layout, Firebase Auth and nav buttons
@@ -40,6 +67,9 @@ public class MainActivity extends AppCompatActivity {
         }
         Log.d(TAG, "Logged in as: " + user.getEmail());
 
+        // Brings data written by older app versions up to the current layout, once the screen is up
+        TradeItApplication.runWhenIdle(() -> DataMigration.runIfNeeded(getApplicationContext()));
+
         Toolbar toolbar = findViewById(R.id.toolbar);
         if (toolbar == null) {
             Log.e(TAG, "Toolbar null check activity_main.xml");
@@ -50,11 +80,12 @@ public class MainActivity extends AppCompatActivity {
         setSupportActionBar(toolbar);
 
         Button btnCategories = findViewById(R.id.btnCategories);
-        Button btnMyItems = findViewById(R.id.btnMyItems);
-        Button btnPending = findViewById(R.id.btnPending);
-        Button btnCompleted = findViewById(R.id.btnCompleted);
+        Button btnSearch = findViewById(R.id.btnSearch);
+        btnMyItems = findViewById(R.id.btnMyItems);
+        btnPending = findViewById(R.id.btnPending);
+        btnCompleted = findViewById(R.id.btnCompleted);
 
-        if (btnCategories == null || btnMyItems == null || btnPending == null || btnCompleted == null) {
+        if (btnCategories == null || btnSearch == null || btnMyItems == null || btnPending == null || btnCompleted == null) {
             Log.e(TAG, "Button(s) null check activity_main.xml IDs");
             Toast.makeText(this, "UI error: Buttons missing", Toast.LENGTH_SHORT).show();
             finish();
@@ -62,9 +93,99 @@ public class MainActivity extends AppCompatActivity {
         }
 
         btnCategories.setOnClickListener(v -> startActivity(new Intent(this, CategoriesActivity.class)));
+        btnSearch.setOnClickListener(v -> startActivity(new Intent(this, SearchActivity.class)));
         btnMyItems.setOnClickListener(v -> startActivity(new Intent(this, MyItemsActivity.class)));
         btnPending.setOnClickListener(v -> startActivity(new Intent(this, PendingTransactionsActivity.class)));
         btnCompleted.setOnClickListener(v -> startActivity(new Intent(this, CompletedTransactionsActivity.class)));
+
+        countersRef = FirebaseDatabase.getInstance().getReference(Counters.userPath(user.getUid()));
+        setupRecentFeed(user.getUid());
+    }
+
+    /**
+     * One key ordered query over recentItems serves the whole feed, a page at a time
+     * Rows use each item's own catId so buy and edit work like in the category screen
+     */
+    private void setupRecentFeed(String uid) {
+        rvRecent = findViewById(R.id.rvRecent);
+        if (rvRecent == null) {
+            Log.e(TAG, "Recent list null check activity_main.xml");
+            return;
+        }
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvRecent.setLayoutManager(layoutManager);
+
+        recentAdapter = new ItemListAdapter(null, uid);
+        rvRecent.setAdapter(recentAdapter);
+        recentAdapter.attachThumbnailPreloader(rvRecent);
+
+        DatabaseReference feedRef = FirebaseDatabase.getInstance().getReference("recentItems");
+        ItemPager.Order order = ItemPager.Order.byKey();
+        ItemSearchIndex searchIndex = ItemSearchIndex.getInstance(this);
+        recentKey = ItemPager.keyFor(feedRef, order);
+        recentFactory = () -> new ItemPager<>(feedRef, order, searchIndex.indexing(Item::fromSnapshot));
+
+        rvRecent.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (recentPager != null && recentPager.size() < FEED_MAX_ROWS
+                        && layoutManager.findLastVisibleItemPosition()
+                        >= recentPager.size() - ItemPager.PREFETCH_DISTANCE) {
+                    recentPager.loadNextPage();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (recentKey != null) {
+            recentPager = ListenerRegistry.getInstance().acquire(recentKey, recentFactory);
+            recentPager.addListener(recentListener);
+        }
+        if (countersRef != null) {
+            loadCounts();
+        }
+    }
+
+    /**
+     * Reads the user's counters again each time the dashboard is shown, after trading elsewhere
+     */
+    private void loadCounts() {
+        Metrics.time("query.counters", countersRef.get())
+                .addOnSuccessListener(this, snapshot -> {
+                    showCount(btnMyItems, "My Items", snapshot.child(Counters.LISTED));
+                    showCount(btnPending, "Pending Transactions", snapshot.child(Counters.PENDING));
+                    showCount(btnCompleted, "Completed Transactions", snapshot.child(Counters.COMPLETED));
+                })
+                .addOnFailureListener(this, e -> Log.e(TAG, "Counters read failed", e));
+    }
+
+    private static void showCount(Button button, String label, DataSnapshot counter) {
+        Long count = counter.getValue(Long.class);
+        button.setText(count != null && count > 0 ? label + " (" + count + ")" : label);
+    }
+
+    /**
+     * Releases the feed, it stays attached for a grace period while other screens are open
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (recentPager != null) {
+            recentPager.removeListener(recentListener);
+            ListenerRegistry.getInstance().release(recentKey);
+            recentPager = null;
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (rvRecent != null) {
+            rvRecent.setAdapter(null);
+        }
     }
 
     /**
@@ -1,26 +1,19 @@
 package edu.uga.cs.tradeit;
 
 import android.os.Bundle;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.view.ViewGroup;
 import android.widget.Toast;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebase.ui.database.FirebaseRecyclerAdapter;
-import com.firebase.ui.database.FirebaseRecyclerOptions;
-import com.firebase.ui.database.SnapshotParser;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.GenericTypeIndicator;
 import com.google.firebase.database.Query;
 
-import java.util.Map;
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.model.Item;
+import edu.uga.cs.tradeit.search.ItemSearchIndex;
 
 /**
  * MyItemsActivity displays user's posted items
@@ -30,8 +23,13 @@ import java.util.Map;
 public class MyItemsActivity extends AppCompatActivity {
 
     private RecyclerView rvMyItems;
-    private FirebaseRecyclerAdapter<Map<String, Object>, ViewItemsActivity.ItemViewHolder> adapter;
-    private FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private ItemListAdapter adapter;
+    // Held between onStart and onStop, shared through the ListenerRegistry
+    private LiveSnapshotList<Item> liveList;
+    private String listKey;
+    private ListenerRegistry.Factory<LiveSnapshotList<Item>> listFactory;
+    private LiveSnapshotList.Listener<Item> listListener;
+    private FirebaseAuth mAuth;
 
     /**
      * Inits activity layout and RecyclerView
@@ -42,6 +40,7 @@ public class MyItemsActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_my_items);
+        mAuth = FirebaseAuth.getInstance();
 
         rvMyItems = findViewById(R.id.recyclerViewMyItems);
         rvMyItems.setLayoutManager(new LinearLayoutManager(this));
@@ -54,77 +53,51 @@ public class MyItemsActivity extends AppCompatActivity {
 
         String uid = mAuth.getCurrentUser().getUid();
 
-        Query query = FirebaseDatabase.getInstance()
+        Query query = IndexedQueries.USER_ITEMS_BY_DATE.on(FirebaseDatabase.getInstance()
                 .getReference("users")
                 .child(uid)
-                .child("items")
-                .orderByChild("postedDate");
-
-        SnapshotParser<Map<String, Object>> parser = new SnapshotParser<Map<String, Object>>() {
-            @NonNull
-            @Override
-            public Map<String, Object> parseSnapshot(@NonNull DataSnapshot snapshot) {
-                GenericTypeIndicator<Map<String, Object>> indicator =
-                        new GenericTypeIndicator<Map<String, Object>>() {};
-                return snapshot.getValue(indicator);
-            }
-        };
-
-        FirebaseRecyclerOptions<Map<String, Object>> options =
-                new FirebaseRecyclerOptions.Builder<Map<String, Object>>()
-                        .setQuery(query, parser)
-                        .build();
-
-        adapter = new FirebaseRecyclerAdapter<Map<String, Object>, ViewItemsActivity.ItemViewHolder>(options) {
-            @Override
-            protected void onBindViewHolder(@NonNull ViewItemsActivity.ItemViewHolder holder,
-                                            int position,
-                                            @NonNull Map<String, Object> model) {
-
-                String itemId = getRef(position).getKey();
-
-                String catId = null;
-                if (model.get("catId") != null) {
-                    catId = model.get("catId").toString();
-                }
-
-                holder.bind(model, catId, itemId);
-            }
-
-            @NonNull
-            @Override
-            public ViewItemsActivity.ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
-                                                                       int viewType) {
-                View view = LayoutInflater.from(parent.getContext())
-                        .inflate(R.layout.item_layout, parent, false);
-                return new ViewItemsActivity.ItemViewHolder(view);
-            }
+                .child("items"));
+
+        // Items seen here also feed the on-device search index
+        ItemSearchIndex searchIndex = ItemSearchIndex.getInstance(this);
+        listKey = "users/" + uid + "/items|postedDate";
+        listFactory = () -> {
+            LiveSnapshotList<Item> list =
+                    new LiveSnapshotList<>(query, searchIndex.indexing(Item::fromSnapshot));
+            list.setRemovalListener(searchIndex::remove);
+            return list;
         };
+        adapter = new ItemListAdapter(null, uid);
+        listListener = adapter::submitList;
 
         rvMyItems.setAdapter(adapter);
+        adapter.attachThumbnailPreloader(rvMyItems);
     }
 
     /**
-     * Starts adapter listener
+     * Picks up the shared list of the user's items
      */
 
     @Override
     protected void onStart() {
         super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
+        if (listFactory != null) {
+            liveList = ListenerRegistry.getInstance().acquire(listKey, listFactory);
+            liveList.addListener(listListener);
         }
     }
 
     /**
-     * Stops adapter listener to avoid mem leaks
+     * Releases the list, the registry detaches it after its grace period
      */
 
     @Override
     protected void onStop() {
         super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+        if (liveList != null) {
+            liveList.removeListener(listListener);
+            ListenerRegistry.getInstance().release(listKey);
+            liveList = null;
         }
     }
 }
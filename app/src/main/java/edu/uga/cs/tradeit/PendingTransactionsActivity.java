@@ -1,5 +1,6 @@
 package edu.uga.cs.tradeit;
 
+import android.content.Context;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,22 +10,21 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.firebase.ui.database.FirebaseRecyclerAdapter;
-import com.firebase.ui.database.FirebaseRecyclerOptions;
-import com.firebase.ui.database.SnapshotParser;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.GenericTypeIndicator;
 import com.google.firebase.database.Query;
-import com.google.firebase.database.ServerValue;
-import com.google.firebase.database.ValueEventListener;
-import java.util.HashMap;
-import java.util.Map;
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.data.ProfileResolver;
+import edu.uga.cs.tradeit.data.TradeRepository;
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Profile;
+import edu.uga.cs.tradeit.model.Transaction;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * This is the activity for the pending transactions. It shows each transaction
@@ -34,20 +34,42 @@ import java.util.Map;
 public class PendingTransactionsActivity extends AppCompatActivity {
     // Recyler for the list of pending transactions
     private RecyclerView rvPending;
-    private FirebaseRecyclerAdapter<Map<String, Object>, PendingViewHolder> adapter;
+    private SnapshotListAdapter<Transaction, PendingViewHolder> adapter;
+    // Held between onStart and onStop, shared through the ListenerRegistry
+    private LiveSnapshotList<Transaction> liveList;
+    private String listKey;
+    private ListenerRegistry.Factory<LiveSnapshotList<Transaction>> listFactory;
+    private LiveSnapshotList.Listener<Transaction> listListener;
+    // Rows, scroll position and the live query survive rotation here
+    private ListStateViewModel listState;
     // Current user
-    private FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private FirebaseAuth mAuth;
     // The key for saving the selected transaction
     private static final String KEY_SELECTED_TRANS = "selected_trans_id";
 
     private String selectedTransId;
 
+    // Rows rebind only when one of the transaction's fields changes
+    private static final DiffUtil.ItemCallback<Transaction> DIFF = new DiffUtil.ItemCallback<Transaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return Objects.equals(oldItem.id, newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return oldItem.toMap().equals(newItem.toMap());
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_pending);
+        mAuth = FirebaseAuth.getInstance();
         rvPending = findViewById(R.id.rvPending);
         rvPending.setLayoutManager(new LinearLayoutManager(this));
+        listState = new ViewModelProvider(this).get(ListStateViewModel.class);
 
         // This will restore the transactions after configuration change
         if (savedInstanceState != null) {
@@ -56,34 +78,29 @@ public class PendingTransactionsActivity extends AppCompatActivity {
 
         String uid = mAuth.getCurrentUser().getUid();
 
-        // This will query all the pending transactions
-        Query query = FirebaseDatabase.getInstance().getReference("transactions/pending")
-                .orderByChild("postedDate");
+        // This will query only the pending transactions indexed under the current user
+        Query query = IndexedQueries.USER_PENDING_BY_DATE.on(FirebaseDatabase.getInstance()
+                .getReference("users")
+                .child(uid)
+                .child("pending"));
 
-        // This is used to convert the data into a Map
-        SnapshotParser<Map<String, Object>> parser = new SnapshotParser<Map<String, Object>>() {
-            @NonNull
+        listKey = "users/" + uid + "/pending|postedDate";
+        listFactory = () -> new LiveSnapshotList<>(query, Transaction::fromSnapshot);
+
+        // Each change hands the adapter a new list, it is diffed off the main thread
+        adapter = new SnapshotListAdapter<Transaction, PendingViewHolder>(DIFF) {
             @Override
-            public Map<String, Object> parseSnapshot(@NonNull DataSnapshot snapshot) {
-                GenericTypeIndicator<Map<String, Object>> indicator = new GenericTypeIndicator<Map<String, Object>>() {};
-                return snapshot.getValue(indicator);
+            protected String keyOf(@NonNull Transaction row) {
+                return row.id;
             }
-        };
-
-        FirebaseRecyclerOptions.Builder<Map<String, Object>> optionsBuilder = new FirebaseRecyclerOptions.Builder<Map<String, Object>>();
-        optionsBuilder.setQuery(query, parser);
-        FirebaseRecyclerOptions<Map<String, Object>> options = optionsBuilder.build();
 
-        // This will auto wire the Firebase data to the PendingViewHolder rows
-        adapter = new FirebaseRecyclerAdapter<Map<String, Object>, PendingViewHolder>(options) {
             @Override
-            protected void onBindViewHolder(PendingViewHolder holder, int position, @NonNull Map<String, Object> model) {
-                String transId = getRef(position).getKey();
-                holder.bind(model, uid, transId);
-
-                if (transId.equals(selectedTransId)) {
-                    holder.itemView.setSelected(true);
-                }
+            public void onBindViewHolder(@NonNull PendingViewHolder holder, int position) {
+                Transaction model = getItem(position);
+                long start = Metrics.begin("bind.pending");
+                holder.bind(model, uid);
+                Metrics.end("bind.pending", start);
+                holder.itemView.setSelected(model.id.equals(selectedTransId));
             }
 
             @NonNull
@@ -94,6 +111,17 @@ public class PendingTransactionsActivity extends AppCompatActivity {
             }
         };
         rvPending.setAdapter(adapter);
+        listListener = rows -> {
+            listState.setRows(rows);
+            adapter.submitList(rows);
+        };
+
+        // After a rotation the last rows are shown from memory and scrolled back into place
+        List<Transaction> cached = listState.getRows();
+        if (cached != null) {
+            adapter.submitList(cached);
+            rvPending.getLayoutManager().onRestoreInstanceState(listState.getLayoutState());
+        }
     }
 
     @Override
@@ -111,13 +139,19 @@ public class PendingTransactionsActivity extends AppCompatActivity {
     @Override
     protected void onStart() {
         super.onStart();
-        adapter.startListening();
+        liveList = listState.attach(listKey, listFactory);
+        liveList.addListener(listListener);
     }
 
+    // The list stays attached for a grace period, so coming straight back costs no download.
+    // When rotating the view model keeps it attached along with the scroll position.
     @Override
     protected void onStop() {
         super.onStop();
-        adapter.stopListening();
+        liveList.removeListener(listListener);
+        listState.detach(listKey, isChangingConfigurations());
+        liveList = null;
+        listState.setLayoutState(rvPending.getLayoutManager().onSaveInstanceState());
     }
 
     // This is the View holder for each pending transaction row, it will show the description of each transaction
@@ -125,6 +159,9 @@ public class PendingTransactionsActivity extends AppCompatActivity {
         TextView tvItem, tvRole, tvDate;
         Button btnConfirm;
 
+        // The other party of the trade currently bound, null when the row has no trade
+        String counterpartyUid;
+
         PendingViewHolder(@NonNull View itemView) {
             super(itemView);
             tvItem = itemView.findViewById(R.id.tvItemName);
@@ -134,33 +171,40 @@ public class PendingTransactionsActivity extends AppCompatActivity {
         }
 
         // This is used to bind one transaction to the row whether that be for the buyer or the seller
-        void bind(Map<String, Object> data, String uid, String transId) {
-            tvItem.setText((String) data.get("itemName"));
-            String role = ((String) data.get("buyerUid")).equals(uid) ? "Buyer" : "Seller";
-            tvRole.setText("Role: " + role);
-            tvDate.setText(data.get("postedDate").toString());
+        void bind(Transaction trans, String uid) {
+            String transId = trans.id;
+            tvItem.setText(trans.itemName);
+            String role = uid.equals(trans.buyerUid) ? "Buyer" : "Seller";
+            boolean buying = role.equals("Buyer");
+            showCounterparty(buying ? "Role: Buyer, buying from " : "Role: Seller, selling to ",
+                    buying ? trans.sellerUid : trans.buyerUid);
+            tvDate.setText(String.valueOf(trans.postedDate));
             btnConfirm.setVisibility(role.equals("Seller") ? View.VISIBLE : View.GONE);
 
             itemView.setOnClickListener(v -> ((PendingTransactionsActivity) itemView.getContext()).selectedTransId = transId);
 
+            // Confirms straight from the row data in one update, no read first
             btnConfirm.setOnClickListener(v -> {
-                DatabaseReference pendingRef = FirebaseDatabase.getInstance().getReference("transactions/pending").child(transId);
-                DatabaseReference completedRef = FirebaseDatabase.getInstance().getReference("transactions/completed").child(transId);
-                pendingRef.addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Map<String, Object> completed = new HashMap<>((Map) snapshot.getValue());
-                        completed.put("completionDate", ServerValue.TIMESTAMP);
-                        completedRef.setValue(completed);
-                        pendingRef.removeValue();
-                        Toast.makeText(itemView.getContext(), "Confirmed", Toast.LENGTH_SHORT).show();
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Toast.makeText(itemView.getContext(), "Error: " + error.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
+                Context context = itemView.getContext().getApplicationContext();
+                TradeRepository.getInstance().confirmTransaction(trans)
+                        .addOnSuccessListener(unused -> Toast.makeText(context, "Confirmed", Toast.LENGTH_SHORT).show())
+                        .addOnFailureListener(e -> Toast.makeText(context, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+            });
+        }
+
+        // Shows the other party's name, straight away when another row already looked it up
+        private void showCounterparty(String prefix, String otherUid) {
+            counterpartyUid = otherUid;
+            if (otherUid == null) {
+                tvRole.setText(prefix + Profile.display(null));
+                return;
+            }
+            tvRole.setText(prefix + "...");
+            ProfileResolver.getInstance().resolve(otherUid, (resolvedUid, profile) -> {
+                // The row may have been rebound to another trade while the name loaded
+                if (resolvedUid.equals(counterpartyUid)) {
+                    tvRole.setText(prefix + Profile.display(profile));
+                }
             });
         }
     }
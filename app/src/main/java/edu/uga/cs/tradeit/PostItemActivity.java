@@ -1,47 +1,76 @@
 package edu.uga.cs.tradeit;
 
+import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ImageView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import com.bumptech.glide.Glide;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ServerValue;
-import java.util.HashMap;
-import java.util.Map;
+import edu.uga.cs.tradeit.data.TradeRepository;
+import edu.uga.cs.tradeit.model.Price;
+import edu.uga.cs.tradeit.photo.PhotoUploader;
 
 /**
  * This is responsible for posting a new item to a category.
  * It adds each item in the database with specific IDs and names.
  *
- * The user will enter an item name and add an optional price. Then it will be posted under that
- * specific category.
+ * The user will enter an item name and add an optional price and photo. Then it will be posted
+ * under that specific category. A photo is shrunk and uploaded first, so the item is written once
+ * with its photo URLs already in every copy.
  */
 public class PostItemActivity extends AppCompatActivity {
+    private static final String TAG = "PostItemActivity";
     private EditText etName, etPrice;
+    private ImageView ivPhotoPreview;
+    private Button btnPost;
+    // The picked photo, null when the item is posted without one
+    private Uri photoUri;
     // This is used to add a category ID for each item.
     private String catId;
-    private FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private FirebaseAuth mAuth;
     private static final String KEY_ITEM_NAME = "item_name";
     private static final String KEY_PRICE = "price";
+    private static final String KEY_PHOTO = "photo";
+
+    // Opens the system picker for one image
+    private final ActivityResultLauncher<String> pickPhoto = registerForActivityResult(
+            new ActivityResultContracts.GetContent(), uri -> {
+                if (uri != null) {
+                    showPhoto(uri);
+                }
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_post_item);
+        mAuth = FirebaseAuth.getInstance();
         // Category ID is passed from the ViewItemsActivity
         catId = getIntent().getStringExtra("CATEGORY_ID");
         etName = findViewById(R.id.etItemName);
         etPrice = findViewById(R.id.etPrice);
-        Button btnPost = findViewById(R.id.btnPost);
+        ivPhotoPreview = findViewById(R.id.ivPhotoPreview);
+        btnPost = findViewById(R.id.btnPost);
+        Button btnAddPhoto = findViewById(R.id.btnAddPhoto);
+        btnAddPhoto.setOnClickListener(v -> pickPhoto.launch("image/*"));
 
         // Restores any unsaved data
         if (savedInstanceState != null) {
             etName.setText(savedInstanceState.getString(KEY_ITEM_NAME));
             etPrice.setText(savedInstanceState.getString(KEY_PRICE));
+            Uri photo = savedInstanceState.getParcelable(KEY_PHOTO);
+            if (photo != null) {
+                showPhoto(photo);
+            }
         }
 
         // THis ensures that when the user taps post it will save it to the Firebase
@@ -49,58 +78,62 @@ public class PostItemActivity extends AppCompatActivity {
     }
 
 
-    // This is for validating the input, generating the Firebase ID, and build the item object.
+    // This is for validating the input, generating the Firebase ID, and handing the item to the repository.
     private void postItem() {
         // This collects the users input
         String name = etName.getText().toString().trim();
-        String price = etPrice.getText().toString().trim().isEmpty()
-                ? "free"
-                : etPrice.getText().toString().trim();
+        // Empty means free, anything else has to be a plain amount so it can be sorted by
+        Long priceCents = Price.parseCents(etPrice.getText().toString());
 
         // This is a check to ensure that the item name is actually inputted
         if (name.isEmpty()) {
             Toast.makeText(this, "Enter item name", Toast.LENGTH_SHORT).show();
             return;
         }
+        if (priceCents == null) {
+            Toast.makeText(this, "Enter a valid price", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
         String uid = mAuth.getCurrentUser().getUid();
 
-        FirebaseDatabase db = FirebaseDatabase.getInstance();
-        DatabaseReference rootRef = db.getReference();
-
-        // Write the data for Firebase to be called later
-        DatabaseReference catRef = rootRef.child("categories")
-                .child(catId)
-                .child("items");
-
-        String itemId = catRef.push().getKey();
+        TradeRepository repo = TradeRepository.getInstance();
+        String itemId = repo.newItemId(catId);
         if (itemId == null) {
             Toast.makeText(this, "Error generating ID", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        // Builds the item object
-        Map<String, Object> itemData = new HashMap<>();
-        itemData.put("id", itemId); // ID
-        itemData.put("name", name); // Name
-        itemData.put("postedDate", ServerValue.TIMESTAMP); // Server Timestamp
-        itemData.put("posterUid", uid); // Owner of the item
-        itemData.put("price", price); // Price
-        itemData.put("catId", catId);   // Which category it is in
-
-        // Writes item to categories
-        catRef.child(itemId).setValue(itemData);
-
-        // Saves the data for the user so that the user can see its own items
-        DatabaseReference userItemRef = rootRef.child("users")
-                .child(uid)
-                .child("items")
-                .child(itemId);
+        if (photoUri == null) {
+            // Writes the item to its category and to the user's own list in one update
+            repo.postItem(catId, itemId, name, priceCents, uid, null, null);
+            Toast.makeText(this, "Item posted", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
 
-        userItemRef.setValue(itemData);
+        // Stops a second tap from uploading the photo twice
+        btnPost.setEnabled(false);
+        Toast.makeText(this, "Uploading photo", Toast.LENGTH_SHORT).show();
+        Task<PhotoUploader.Urls> upload = PhotoUploader.upload(this, photoUri, itemId, uid);
+        // Not tied to this screen, so the item is still written if it is rotated or closed first
+        upload.addOnSuccessListener(urls ->
+                repo.postItem(catId, itemId, name, priceCents, uid, urls.thumbUrl, urls.photoUrl));
+        upload.addOnSuccessListener(this, urls -> {
+            Toast.makeText(this, "Item posted", Toast.LENGTH_SHORT).show();
+            finish();
+        }).addOnFailureListener(this, e -> {
+            Log.e(TAG, "Photo upload failed", e);
+            Toast.makeText(this, "Photo upload failed", Toast.LENGTH_SHORT).show();
+            btnPost.setEnabled(true);
+        });
+    }
 
-        Toast.makeText(this, "Item posted", Toast.LENGTH_SHORT).show();
-        finish();
+    // Keeps the picked photo and shows it, Glide decodes it at the preview's size
+    private void showPhoto(Uri uri) {
+        photoUri = uri;
+        ivPhotoPreview.setVisibility(View.VISIBLE);
+        Glide.with(this).load(uri).centerCrop().into(ivPhotoPreview);
     }
 
 
@@ -110,6 +143,7 @@ public class PostItemActivity extends AppCompatActivity {
         super.onSaveInstanceState(outState);
         outState.putString(KEY_ITEM_NAME, etName.getText().toString());
         outState.putString(KEY_PRICE, etPrice.getText().toString());
+        outState.putParcelable(KEY_PHOTO, photoUri);
     }
 
     @Override
@@ -10,6 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import edu.uga.cs.tradeit.model.Profile;
 
 /**
  * This is responsible for handling the user registration.
@@ -64,6 +65,9 @@ public class RegisterActivity extends AppCompatActivity {
                         DatabaseReference ref = FirebaseDatabase.getInstance().getReference("users").child(uid);
                         ref.child("email").setValue(email);
                         ref.child("createdDate").setValue(com.google.firebase.database.ServerValue.TIMESTAMP);
+                        // The public profile other users see on their trades, kept apart from users/{uid}
+                        FirebaseDatabase.getInstance().getReference("profiles").child(uid)
+                                .child("displayName").setValue(Profile.defaultDisplayName(email));
                         // Since registration is complete go to the dashboard
                         startActivity(new Intent(RegisterActivity.this, MainActivity.class));
                         finish();
@@ -0,0 +1,157 @@
+package edu.uga.cs.tradeit;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.search.ItemSearchIndex;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * SearchActivity finds items by name across every category using the on-device search index.
+ * Each keystroke runs a prefix query against the index, nothing is read from the database.
+ * Tapping a result opens the item's category.
+ */
+public class SearchActivity extends AppCompatActivity {
+
+    // Most results shown for one query
+    private static final int MAX_RESULTS = 50;
+
+    private static final String KEY_QUERY = "query";
+
+    private static final DiffUtil.ItemCallback<ItemSearchIndex.Entry> DIFF =
+            new DiffUtil.ItemCallback<ItemSearchIndex.Entry>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ItemSearchIndex.Entry oldItem,
+                                               @NonNull ItemSearchIndex.Entry newItem) {
+                    return oldItem.itemId.equals(newItem.itemId);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ItemSearchIndex.Entry oldItem,
+                                                  @NonNull ItemSearchIndex.Entry newItem) {
+                    return oldItem.name.equals(newItem.name)
+                            && Objects.equals(oldItem.price, newItem.price);
+                }
+            };
+
+    private ItemSearchIndex searchIndex;
+    private SnapshotListAdapter<ItemSearchIndex.Entry, ResultViewHolder> adapter;
+    private EditText etSearch;
+    private TextView tvEmpty;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_search);
+
+        searchIndex = ItemSearchIndex.getInstance(this);
+        etSearch = findViewById(R.id.etSearch);
+        tvEmpty = findViewById(R.id.tvSearchEmpty);
+
+        RecyclerView rvResults = findViewById(R.id.rvSearchResults);
+        rvResults.setLayoutManager(new LinearLayoutManager(this));
+
+        adapter = new SnapshotListAdapter<ItemSearchIndex.Entry, ResultViewHolder>(DIFF) {
+            @Override
+            protected String keyOf(@NonNull ItemSearchIndex.Entry row) {
+                return row.itemId;
+            }
+
+            @NonNull
+            @Override
+            public ResultViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+                View view = LayoutInflater.from(parent.getContext())
+                        .inflate(R.layout.item_search_result, parent, false);
+                return new ResultViewHolder(view);
+            }
+
+            @Override
+            public void onBindViewHolder(@NonNull ResultViewHolder holder, int position) {
+                long start = Metrics.begin("bind.search");
+                holder.bind(getItem(position));
+                Metrics.end("bind.search", start);
+            }
+        };
+        rvResults.setAdapter(adapter);
+
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                runQuery(s.toString());
+            }
+        });
+
+        if (savedInstanceState != null) {
+            etSearch.setText(savedInstanceState.getString(KEY_QUERY));
+        }
+    }
+
+    // Queries the index and shows the results, an empty query clears the list
+    private void runQuery(String query) {
+        List<ItemSearchIndex.Entry> results = searchIndex.search(query, MAX_RESULTS);
+        adapter.submitList(results);
+        tvEmpty.setVisibility(results.isEmpty() && !query.trim().isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(KEY_QUERY, etSearch.getText().toString());
+    }
+
+    /**
+     * ViewHolder for a search result, opens the item's category on tap
+     */
+    static class ResultViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        TextView tvName, tvPrice;
+
+        ItemSearchIndex.Entry entry;
+
+        ResultViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvName = itemView.findViewById(R.id.tvResultName);
+            tvPrice = itemView.findViewById(R.id.tvResultPrice);
+            itemView.setOnClickListener(this);
+        }
+
+        void bind(ItemSearchIndex.Entry entry) {
+            this.entry = entry;
+            tvName.setText(entry.name);
+            tvPrice.setText(entry.price != null && !entry.price.isEmpty() ? entry.price : "free");
+        }
+
+        @Override
+        public void onClick(View v) {
+            if (entry == null || getBindingAdapterPosition() == RecyclerView.NO_POSITION) {
+                return;
+            }
+            Intent intent = new Intent(itemView.getContext(), ViewItemsActivity.class);
+            intent.putExtra("CATEGORY_ID", entry.catId);
+            itemView.getContext().startActivity(intent);
+        }
+    }
+}
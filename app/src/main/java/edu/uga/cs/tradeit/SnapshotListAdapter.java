@@ -0,0 +1,41 @@
+package edu.uga.cs.tradeit;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Base adapter for lists of database rows. Lists are diffed on a background thread by ListAdapter,
+ * and each row gets a stable ID from its database key so only changed rows are rebound.
+ */
+abstract class SnapshotListAdapter<T, VH extends RecyclerView.ViewHolder> extends ListAdapter<T, VH> {
+
+    protected SnapshotListAdapter(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
+        super(diffCallback);
+        setHasStableIds(true);
+    }
+
+    /**
+     * The database key of the row
+     */
+    protected abstract String keyOf(@NonNull T row);
+
+    @Override
+    public long getItemId(int position) {
+        return stableId(keyOf(getItem(position)));
+    }
+
+    // 64 bit FNV-1a hash of the key, push keys are unique so collisions are not a practical concern
+    private static long stableId(String key) {
+        if (key == null) {
+            return RecyclerView.NO_ID;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
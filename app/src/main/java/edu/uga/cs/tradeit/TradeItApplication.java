@@ -0,0 +1,86 @@
+package edu.uga.cs.tradeit;
+
+import android.app.Application;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.storage.FirebaseStorage;
+
+/**
+ * TradeItApplication turns on Realtime Database disk persistence before any screen touches the
+ * database, so every list renders from the on-device cache first and syncs in the background.
+ *
+ * The signed in user's own paths are kept synced so they are already current on the next cold start.
+ * Setting that up opens the cache and the connection, so it waits until the first frame is drawn.
+ */
+public class TradeItApplication extends Application {
+
+    // Paths under users/{uid} that each screen reads
+    private static final String[] USER_SYNCED_PATHS = {"items", "pending", "completed"};
+
+    // The Android emulator reaches the host machine's Firebase emulators through this address
+    private static final String EMULATOR_HOST = "10.0.2.2";
+
+    private String syncedUid;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Must happen before the first FirebaseDatabase reference is created. This only records
+        // the setting, the cache itself is opened by the first reference.
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        if (BuildConfig.USE_EMULATOR) {
+            database.useEmulator(EMULATOR_HOST, 9000);
+            FirebaseAuth.getInstance().useEmulator(EMULATOR_HOST, 9099);
+            FirebaseStorage.getInstance().useEmulator(EMULATOR_HOST, 9199);
+        }
+        database.setPersistenceEnabled(true);
+
+        runWhenIdle(() -> {
+            // The category list is small metadata that everyone opens first
+            database.getReference("categories").keepSynced(true);
+
+            FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+                FirebaseUser user = auth.getCurrentUser();
+                updateUserSync(user != null ? user.getUid() : null);
+            });
+        });
+    }
+
+    /**
+     * Runs the task on the main thread once it has nothing else queued, which at startup is
+     * after the first activity has drawn its first frame
+     */
+    static void runWhenIdle(@NonNull Runnable task) {
+        Looper.getMainLooper().getQueue().addIdleHandler(() -> {
+            task.run();
+            return false;
+        });
+    }
+
+    // Moves keepSynced from the previous user's paths to the new user's paths
+    private void updateUserSync(String uid) {
+        if (uid != null && uid.equals(syncedUid)) {
+            return;
+        }
+
+        DatabaseReference usersRef = FirebaseDatabase.getInstance().getReference("users");
+        if (syncedUid != null) {
+            for (String path : USER_SYNCED_PATHS) {
+                usersRef.child(syncedUid).child(path).keepSynced(false);
+            }
+        }
+        if (uid != null) {
+            for (String path : USER_SYNCED_PATHS) {
+                usersRef.child(uid).child(path).keepSynced(true);
+            }
+        }
+        syncedUid = uid;
+    }
+}
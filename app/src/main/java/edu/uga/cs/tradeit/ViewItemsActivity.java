@@ -1,13 +1,18 @@
 package edu.uga.cs.tradeit;
 
 import android.app.AlertDialog;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.view.LayoutInflater;
+import android.text.InputType;
+import android.util.Log;
 import android.view.View;
-import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -16,38 +21,55 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.firebase.ui.database.FirebaseRecyclerAdapter;
-import com.firebase.ui.database.FirebaseRecyclerOptions;
-import com.firebase.ui.database.SnapshotParser;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.GenericTypeIndicator;
-import com.google.firebase.database.Query;
-import com.google.firebase.database.ServerValue;
 
-import java.text.DateFormat;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import edu.uga.cs.tradeit.data.IndexedQueries;
+import edu.uga.cs.tradeit.data.TradeRepository;
+import edu.uga.cs.tradeit.model.Item;
+import edu.uga.cs.tradeit.model.Price;
+import edu.uga.cs.tradeit.photo.PhotoUploader;
+import edu.uga.cs.tradeit.search.ItemSearchIndex;
 
 /**
  * This is responsible for displaying all the items inside a selceted category.
  *
- * It ensures that it loads items sorted by postedDate, allows the users to post new items,
+ * It ensures that it loads items newest first a page at a time, or sorted and filtered by price,
+ * allows the users to post new items,
  * allow the items owners to update/delete their own items, and allow buyers to either buy or accept
  * the item.
  */
 public class ViewItemsActivity extends AppCompatActivity {
+    private static final String TAG = "ViewItemsActivity";
 
     private RecyclerView rvItems;
-    private FirebaseRecyclerAdapter<Map<String, Object>, ItemViewHolder> adapter;
+    private ItemListAdapter adapter;
+    // Held between onStart and onStop, shared with any other screen showing the same list
+    private ItemPager<Item> pager;
+    private String pagerKey;
+    private ListenerRegistry.Factory<ItemPager<Item>> pagerFactory;
     private String catId;
+    private ItemSearchIndex searchIndex;
+
+    private Spinner spSort;
+    private EditText etMinPrice, etMaxPrice;
 
     private static final String KEY_CAT_ID = "category_id";
 
+    // Positions in the sort spinner
+    private static final int SORT_NEWEST = 0;
+    private static final int SORT_PRICE_LOW = 1;
+    private static final int SORT_PRICE_HIGH = 2;
+    private static final int SORT_FREE_NEWEST = 3;
+    private static final String[] SORT_LABELS =
+            {"Newest", "Price: low to high", "Price: high to low", "Free, newest first"};
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -66,7 +88,18 @@ public class ViewItemsActivity extends AppCompatActivity {
 
         rvItems = findViewById(R.id.rvItems);
         rvItems.setLayoutManager(new LinearLayoutManager(this));
-        rvItems.setItemAnimator(null);
+
+        // Asks for the next page once the user gets close to the bottom
+        rvItems.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (pager != null && lm != null
+                        && lm.findLastVisibleItemPosition() >= pager.size() - ItemPager.PREFETCH_DISTANCE) {
+                    pager.loadNextPage();
+                }
+            }
+        });
 
         // A floating button to post a new item
         FloatingActionButton fabPostItem = findViewById(R.id.fabPostItem);
@@ -77,55 +110,124 @@ public class ViewItemsActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
+        // Sort and price range controls, the spinner and fields restore their own state on rotation
+        spSort = findViewById(R.id.spSort);
+        etMinPrice = findViewById(R.id.etMinPrice);
+        etMaxPrice = findViewById(R.id.etMaxPrice);
+        ArrayAdapter<String> sortAdapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_spinner_item, SORT_LABELS);
+        sortAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spSort.setAdapter(sortAdapter);
+        Button btnApplyFilter = findViewById(R.id.btnApplyFilter);
+        btnApplyFilter.setOnClickListener(v -> applyFilter());
+
         setupAdapter();
     }
 
-    // This sets up the FirebaseRecylerApapter to properly read the data in categories.
+    // This sets up the adapter and the pager that reads the items in the category page by page.
     private void setupAdapter() {
-        Query query = FirebaseDatabase.getInstance()
-                .getReference("categories")
-                .child(catId)
-                .child("items")
-                .orderByChild("postedDate");
-
-        // Used to parse each snapshot into a simple map.
-        SnapshotParser<Map<String, Object>> parser = new SnapshotParser<Map<String, Object>>() {
-            @NonNull
-            @Override
-            public Map<String, Object> parseSnapshot(@NonNull DataSnapshot snapshot) {
-                GenericTypeIndicator<Map<String, Object>> indicator =
-                        new GenericTypeIndicator<Map<String, Object>>() {};
-                Map<String, Object> value = snapshot.getValue(indicator);
-                return value != null ? value : new HashMap<>();
-            }
-        };
+        // Looked up once here instead of on every bind
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        String currentUid = user != null ? user.getUid() : null;
 
-        FirebaseRecyclerOptions<Map<String, Object>> options =
-                new FirebaseRecyclerOptions.Builder<Map<String, Object>>()
-                        .setQuery(query, parser)
-                        .build();
+        adapter = new ItemListAdapter(catId, currentUid);
 
-        adapter = new FirebaseRecyclerAdapter<Map<String, Object>, ItemViewHolder>(options) {
+        // Items seen here also feed the on-device search index
+        searchIndex = ItemSearchIndex.getInstance(this);
 
-            @Override
-            protected void onBindViewHolder(@NonNull ItemViewHolder holder,
-                                            int position,
-                                            @NonNull Map<String, Object> model) {
-                // THe Firebase key for the specific item
-                String itemId = getRef(position).getKey();
-                holder.bind(model, catId, itemId);
-            }
+        rvItems.setAdapter(adapter);
+        adapter.attachThumbnailPreloader(rvItems);
+        setupPager(categoryItems(), ItemPager.Order.newestFirst(), true);
+    }
 
-            @NonNull
-            @Override
-            public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-                View view = LayoutInflater.from(parent.getContext())
-                        .inflate(R.layout.item_layout, parent, false);
-                return new ItemViewHolder(view);
+    private DatabaseReference categoryItems() {
+        return FirebaseDatabase.getInstance().getReference("items").child(catId);
+    }
+
+    // Switches to the pager for the given list and order, the old rows stay up until the new ones
+    // load. Only with the category in postedDate order does a row leaving a page mean it was
+    // deleted, in any other order or range it may just have been repriced.
+    private void setupPager(DatabaseReference node, ItemPager.Order order, boolean reportRemovals) {
+        boolean started = pager != null;
+        if (started) {
+            releasePager();
+        }
+
+        ItemSearchIndex index = searchIndex;
+        pagerKey = ItemPager.keyFor(node, order);
+        pagerFactory = () -> {
+            ItemPager<Item> newPager = new ItemPager<>(node, order, index.indexing(Item::fromSnapshot));
+            if (reportRemovals) {
+                newPager.setRemovalListener(index::remove);
             }
+            return newPager;
         };
 
-        rvItems.setAdapter(adapter);
+        if (started) {
+            acquirePager();
+        }
+    }
+
+    // Each change hands the adapter a new list, it is diffed off the main thread
+    private final ItemPager.Listener pagerListener = () -> {
+        if (adapter != null && pager != null) {
+            adapter.submitList(pager.snapshot());
+        }
+    };
+
+    private void acquirePager() {
+        pager = ListenerRegistry.getInstance().acquire(pagerKey, pagerFactory);
+        pager.addListener(pagerListener);
+    }
+
+    private void releasePager() {
+        pager.removeListener(pagerListener);
+        ListenerRegistry.getInstance().release(pagerKey);
+        pager = null;
+    }
+
+    // Builds the order from the sort spinner and the price fields. The database can only filter
+    // on the child it orders by, so a price range always orders by price. Free items newest first
+    // is one prefix scan of the itemsByKey index and ignores the price fields.
+    private void applyFilter() {
+        if (spSort.getSelectedItemPosition() == SORT_FREE_NEWEST) {
+            setupPager(FirebaseDatabase.getInstance().getReference("itemsByKey"),
+                    ItemPager.Order.prefix(IndexedQueries.ITEMS_BY_SORT_KEY,
+                            TradeRepository.sortKeyPrefix(catId, 0)), false);
+            rvItems.scrollToPosition(0);
+            return;
+        }
+
+        String minText = etMinPrice.getText().toString().trim();
+        String maxText = etMaxPrice.getText().toString().trim();
+        Long minCents = minText.isEmpty() ? null : Price.parseCents(minText);
+        Long maxCents = maxText.isEmpty() ? null : Price.parseCents(maxText);
+        if ((!minText.isEmpty() && minCents == null) || (!maxText.isEmpty() && maxCents == null)) {
+            Toast.makeText(this, "Enter a valid price", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (minCents != null && maxCents != null && minCents > maxCents) {
+            Toast.makeText(this, "Min price is above max price", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int sort = spSort.getSelectedItemPosition();
+        boolean hasRange = minCents != null || maxCents != null;
+        if (sort == SORT_NEWEST && hasRange) {
+            sort = SORT_PRICE_LOW;
+            spSort.setSelection(sort);
+        }
+
+        if (sort == SORT_NEWEST) {
+            setupPager(categoryItems(), ItemPager.Order.newestFirst(), true);
+        } else {
+            // Items without a numeric price sort before 0, starting at 0 leaves them out
+            double min = minCents != null ? minCents : 0;
+            Double max = maxCents != null ? maxCents.doubleValue() : null;
+            setupPager(categoryItems(),
+                    ItemPager.Order.byPrice(sort == SORT_PRICE_HIGH, min, max), false);
+        }
+        rvItems.scrollToPosition(0);
     }
 
     @Override
@@ -134,19 +236,30 @@ public class ViewItemsActivity extends AppCompatActivity {
         outState.putString(KEY_CAT_ID, catId);
     }
 
+    // The spinner and price fields come back on their own, the pager is rebuilt to match them
+    @Override
+    protected void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
+        super.onRestoreInstanceState(savedInstanceState);
+        if (spSort.getSelectedItemPosition() != SORT_NEWEST
+                || etMinPrice.length() > 0 || etMaxPrice.length() > 0) {
+            applyFilter();
+        }
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
-        if (adapter != null) {
-            adapter.startListening();
+        if (pagerKey != null) {
+            acquirePager();
         }
     }
 
+    // The pager stays attached for a grace period, so coming straight back costs no download
     @Override
     protected void onStop() {
         super.onStop();
-        if (adapter != null) {
-            adapter.stopListening();
+        if (pager != null) {
+            releasePager();
         }
     }
 
@@ -158,111 +271,121 @@ public class ViewItemsActivity extends AppCompatActivity {
         }
     }
 
-    // Detaches when the back button is pressed.
-    @Override
-    public void onBackPressed() {
-        if (adapter != null) {
-            adapter.stopListening();
-            rvItems.setAdapter(null);
-            adapter = null;
-        }
-        super.onBackPressed();
-    }
-
     // This is the ViewHolder for each item and populates each row with the specif data.
-    static class ItemViewHolder extends RecyclerView.ViewHolder {
+    // The current user is passed in once by the adapter and the buttons share one click listener
+    // that is set up here, so bind() only copies already prepared values into the views.
+    static class ItemViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
         TextView tvName, tvPrice, tvDate;
+        ImageView ivThumb;
         Button btnBuy, btnUpdate, btnDelete;
 
-        Map<String, Object> itemData;
+        final String currentUid;
+        final int thumbPx;
+
+        Item item;
         String itemId;
         String catId;
 
-        ItemViewHolder(@NonNull View itemView) {
+        ItemViewHolder(@NonNull View itemView, String currentUid) {
             super(itemView);
+            this.currentUid = currentUid;
             tvName = itemView.findViewById(R.id.tvItemName);
             tvPrice = itemView.findViewById(R.id.tvPrice);
             tvDate = itemView.findViewById(R.id.tvDate);
+            ivThumb = itemView.findViewById(R.id.ivThumb);
+            thumbPx = itemView.getResources().getDimensionPixelSize(R.dimen.item_thumb_size);
             btnBuy = itemView.findViewById(R.id.btnBuy);
             btnUpdate = itemView.findViewById(R.id.btnUpdate);
             btnDelete = itemView.findViewById(R.id.btnDelete);
+
+            btnBuy.setOnClickListener(this);
+            btnUpdate.setOnClickListener(this);
+            btnDelete.setOnClickListener(this);
+            ivThumb.setOnClickListener(this);
         }
 
-        void bind(Map<String, Object> data, String catId, String itemId) {
-            this.itemData = data;
+        void bind(Item item, String catId) {
+            this.item = item;
             this.catId = catId;
-            this.itemId = itemId;
+            this.itemId = item.id;
 
-            String name = (String) data.get("name");
-            tvName.setText(name != null ? name : "(no name)");
+            tvName.setText(item.name != null ? item.name : "(no name)");
 
-            String price = (String) data.get("price");
-            if (price == null || price.isEmpty()) {
-                price = "free";
-            }
+            String price = item.priceText != null ? item.priceText : Price.display(item);
             tvPrice.setText(price);
-            if (price.equalsIgnoreCase("free")) {
+            if (price.equals("free")) {
                 btnBuy.setText("Accept");
             } else {
                 btnBuy.setText("Buy");
             }
 
-            Object tsObj = data.get("postedDate");
-            if (tsObj instanceof Long) {
-                Date d = new Date((Long) tsObj);
-                tvDate.setText(DateFormat.getDateTimeInstance().format(d));
+            if (item.postedDate != null) {
+                // Formatted the first time the item is shown and reused after that
+                if (item.postedDateText == null) {
+                    item.postedDateText = Formatters.dateTime(item.postedDate);
+                }
+                tvDate.setText(item.postedDateText);
             } else {
                 tvDate.setText("n/a");
             }
 
-            String posterUid = (String) data.get("posterUid");
-            FirebaseAuth mAuth = FirebaseAuth.getInstance();
-            String currentUid = mAuth.getCurrentUser() != null
-                    ? mAuth.getCurrentUser().getUid()
-                    : null;
+            if (item.thumbUrl != null) {
+                ivThumb.setVisibility(View.VISIBLE);
+                ItemListAdapter.thumbnail(Glide.with(ivThumb), item.thumbUrl, thumbPx).into(ivThumb);
+            } else {
+                clearThumbnail();
+            }
+
+            String posterUid = item.posterUid;
             boolean isOwn = (posterUid != null && posterUid.equals(currentUid));
 
             btnUpdate.setVisibility(isOwn ? View.VISIBLE : View.GONE);
             btnDelete.setVisibility(isOwn ? View.VISIBLE : View.GONE);
             btnBuy.setVisibility(isOwn ? View.GONE : View.VISIBLE);
+        }
 
-            btnBuy.setOnClickListener(v -> createPendingTransaction());
-            btnUpdate.setOnClickListener(v -> showUpdateDialog());
-            btnDelete.setOnClickListener(v -> showDeleteDialog());
+        void clearThumbnail() {
+            Glide.with(ivThumb).clear(ivThumb);
+            ivThumb.setVisibility(View.GONE);
         }
 
-        // Resposible for creating a pending transaction and removing the item from the category.
-        private void createPendingTransaction() {
-            String buyerUid = FirebaseAuth.getInstance().getCurrentUser().getUid();
-            String sellerUid = (String) itemData.get("posterUid");
-
-            DatabaseReference transRef = FirebaseDatabase.getInstance()
-                    .getReference("transactions")
-                    .child("pending")
-                    .push();
-
-            Map<String, Object> trans = new HashMap<>();
-            trans.put("buyerUid", buyerUid); // Buyer ID
-            trans.put("sellerUid", sellerUid); // Seller ID
-            trans.put("itemName", itemData.get("name")); // Item
-            trans.put("catId", catId); // Category ID
-            trans.put("postedDate", ServerValue.TIMESTAMP); // When its posted
-            trans.put("price", itemData.get("price")); // Price
-
-            // Saves the transaction
-            transRef.setValue(trans);
-
-            // Removes it from the category list
-            if (itemId != null) {
-                DatabaseReference itemRef = FirebaseDatabase.getInstance()
-                        .getReference("categories")
-                        .child(catId)
-                        .child("items")
-                        .child(itemId);
-                itemRef.removeValue();
+        @Override
+        public void onClick(View v) {
+            // Ignores taps on a row that is being removed
+            if (item == null || getBindingAdapterPosition() == RecyclerView.NO_POSITION) {
+                return;
+            }
+            int id = v.getId();
+            if (id == R.id.btnBuy) {
+                createPendingTransaction();
+            } else if (id == R.id.btnUpdate) {
+                showUpdateDialog();
+            } else if (id == R.id.btnDelete) {
+                showDeleteDialog();
+            } else if (id == R.id.ivThumb) {
+                showPhotoDialog();
             }
+        }
 
-            Toast.makeText(itemView.getContext(), "Request placed", Toast.LENGTH_SHORT).show();
+        // Resposible for creating a pending transaction and removing the item from the category.
+        // The claim is a single atomic update, if another buyer got there first it is rejected.
+        // Only that rejection means the item is gone, any other failure is worth retrying.
+        private void createPendingTransaction() {
+            String buyerUid = currentUid;
+            Context context = itemView.getContext().getApplicationContext();
+
+            TradeRepository.getInstance().requestItem(item, catId, buyerUid)
+                    .addOnSuccessListener(unused ->
+                            Toast.makeText(context, "Request placed", Toast.LENGTH_SHORT).show())
+                    .addOnFailureListener(e -> {
+                        if (e instanceof TradeRepository.WriteException
+                                && ((TradeRepository.WriteException) e).code == DatabaseError.PERMISSION_DENIED) {
+                            Toast.makeText(context, "Item is no longer available", Toast.LENGTH_SHORT).show();
+                        } else {
+                            Log.e(TAG, "Request failed", e);
+                            Toast.makeText(context, "Request failed, please try again", Toast.LENGTH_SHORT).show();
+                        }
+                    });
         }
 
         // Pulls up dialog allowing the items owner to update it
@@ -280,14 +403,15 @@ public class ViewItemsActivity extends AppCompatActivity {
 
             EditText etNewName = new EditText(itemView.getContext());
             etNewName.setHint("Item name");
-            etNewName.setText((String) itemData.get("name"));
+            etNewName.setText(item.name);
             layout.addView(etNewName);
 
             EditText etNewPrice = new EditText(itemView.getContext());
             etNewPrice.setHint("Price (or leave empty for free)");
-            String currentPrice = (String) itemData.get("price");
-            if (currentPrice != null && !"free".equalsIgnoreCase(currentPrice)) {
-                etNewPrice.setText(currentPrice);
+            etNewPrice.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+            String currentPrice = Price.display(item);
+            if (!currentPrice.equals("free")) {
+                etNewPrice.setText(currentPrice.replace("$", ""));
             }
             layout.addView(etNewPrice);
 
@@ -296,34 +420,20 @@ public class ViewItemsActivity extends AppCompatActivity {
                     .setView(layout)
                     .setPositiveButton("Update", (dialog, which) -> {
                         String newName = etNewName.getText().toString().trim();
-                        String newPriceInput = etNewPrice.getText().toString().trim();
-                        String newPrice = newPriceInput.isEmpty() ? "free" : newPriceInput;
+                        Long newPriceCents = Price.parseCents(etNewPrice.getText().toString());
 
                         if (newName.isEmpty()) {
                             Toast.makeText(itemView.getContext(),
                                     "Name cannot be empty", Toast.LENGTH_SHORT).show();
                             return;
                         }
+                        if (newPriceCents == null) {
+                            Toast.makeText(itemView.getContext(),
+                                    "Enter a valid price", Toast.LENGTH_SHORT).show();
+                            return;
+                        }
 
-                        Map<String, Object> updateData = new HashMap<>();
-                        updateData.put("name", newName);
-                        updateData.put("price", newPrice);
-                        updateData.put("updatedDate", ServerValue.TIMESTAMP);
-
-                        DatabaseReference catRef = FirebaseDatabase.getInstance()
-                                .getReference("categories")
-                                .child(catId)
-                                .child("items")
-                                .child(itemId);
-                        catRef.updateChildren(updateData);
-
-                        String uid = FirebaseAuth.getInstance().getCurrentUser().getUid();
-                        DatabaseReference userRef = FirebaseDatabase.getInstance()
-                                .getReference("users")
-                                .child(uid)
-                                .child("items")
-                                .child(itemId);
-                        userRef.updateChildren(updateData);
+                        TradeRepository.getInstance().updateItem(item, catId, newName, newPriceCents);
 
                         Toast.makeText(itemView.getContext(),
                                 "Item updated", Toast.LENGTH_SHORT).show();
@@ -332,7 +442,30 @@ public class ViewItemsActivity extends AppCompatActivity {
                     .show();
         }
 
-        // Deletes the item from both categories and the user that owns it
+        // Shows the full size photo. Glide scales it to the screen, so the decoded bitmap is
+        // never bigger than the view it is shown in.
+        private void showPhotoDialog() {
+            if (item.photoUrl == null) {
+                return;
+            }
+            ImageView photo = new ImageView(itemView.getContext());
+            photo.setAdjustViewBounds(true);
+            RequestBuilder<Drawable> request = Glide.with(photo).load(item.photoUrl);
+            if (item.thumbUrl != null) {
+                // The row's thumbnail is already in memory and shows until the full photo arrives
+                request = request.thumbnail(
+                        ItemListAdapter.thumbnail(Glide.with(photo), item.thumbUrl, thumbPx));
+            }
+            request.into(photo);
+
+            new AlertDialog.Builder(itemView.getContext())
+                    .setTitle(item.name)
+                    .setView(photo)
+                    .setPositiveButton("Close", null)
+                    .show();
+        }
+
+        // Deletes the item from both its category and the user that owns it
         private void showDeleteDialog() {
             if (itemId == null || itemId.isEmpty()) {
                 Toast.makeText(itemView.getContext(), "Error: Invalid item ID", Toast.LENGTH_SHORT).show();
@@ -341,25 +474,23 @@ public class ViewItemsActivity extends AppCompatActivity {
 
             new AlertDialog.Builder(itemView.getContext())
                     .setTitle("Delete Item")
-                    .setMessage("Delete \"" + itemData.get("name") + "\"?")
+                    .setMessage("Delete \"" + item.name + "\"?")
                     .setPositiveButton("Delete", (dialog, which) -> {
-                        DatabaseReference catRef = FirebaseDatabase.getInstance()
-                                .getReference("categories")
-                                .child(catId)
-                                .child("items")
-                                .child(itemId);
-                        catRef.removeValue();
-
-                        String uid = FirebaseAuth.getInstance().getCurrentUser().getUid();
-                        DatabaseReference userRef = FirebaseDatabase.getInstance()
-                                .getReference("users")
-                                .child(uid)
-                                .child("items")
-                                .child(itemId);
-                        userRef.removeValue();
-
-                        Toast.makeText(itemView.getContext(),
-                                "Item deleted", Toast.LENGTH_SHORT).show();
+                        Context context = itemView.getContext().getApplicationContext();
+                        String deletedId = itemId;
+                        boolean hasPhoto = item.photoUrl != null;
+                        // The photo goes only once the item is gone, a rejected delete keeps both
+                        TradeRepository.getInstance().deleteItem(item, catId)
+                                .addOnSuccessListener(unused -> {
+                                    if (hasPhoto) {
+                                        PhotoUploader.delete(deletedId);
+                                    }
+                                    Toast.makeText(context, "Item deleted", Toast.LENGTH_SHORT).show();
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "Delete failed", e);
+                                    Toast.makeText(context, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                                });
                     })
                     .setNegativeButton("Cancel", null)
                     .show();
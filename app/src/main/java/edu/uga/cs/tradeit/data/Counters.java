@@ -0,0 +1,66 @@
+package edu.uga.cs.tradeit.data;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Counters keeps the counts the app shows without downloading the lists they count.
+ *
+ * Each user has counters/{uid}/listed, pending and completed, which only that user's own trades
+ * change, so one plain number each is enough. A category's item count is changed by everyone
+ * posting or buying in it, so it is split over CATEGORY_SHARDS numbers at
+ * categories/{catId}/itemShards/{shard}. Each change picks a shard at random, so concurrent
+ * posters rarely land on the same number, and Category adds the shards up when it is read.
+ *
+ * Changes are collected here and put into the same updateChildren as the mutation they count,
+ * so a count can never drift from the data it describes.
+ */
+public final class Counters {
+
+    public static final String LISTED = "listed";
+    public static final String PENDING = "pending";
+    public static final String COMPLETED = "completed";
+
+    // Enough that a busy category's posters rarely share a shard, few enough to add up cheaply
+    static final int CATEGORY_SHARDS = 8;
+
+    // Path to the delta, so two changes to the same counter in one update add up
+    private final Map<String, Long> deltas = new HashMap<>();
+
+    /**
+     * Path of the user's counters, the whole node is one small read
+     */
+    @NonNull
+    public static String userPath(@NonNull String uid) {
+        return "counters/" + uid;
+    }
+
+    Counters user(@NonNull String uid, @NonNull String counter, long delta) {
+        return add(userPath(uid) + "/" + counter, delta);
+    }
+
+    Counters categoryItems(@NonNull String catId, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(CATEGORY_SHARDS);
+        return add("categories/" + catId + "/itemShards/" + shard, delta);
+    }
+
+    // Increments are applied by the server, so concurrent changes are never lost
+    void putInto(@NonNull Map<String, Object> updates) {
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0) {
+                updates.put(delta.getKey(), ServerValue.increment(delta.getValue()));
+            }
+        }
+    }
+
+    private Counters add(String path, long delta) {
+        Long current = deltas.get(path);
+        deltas.put(path, current != null ? current + delta : delta);
+        return this;
+    }
+}
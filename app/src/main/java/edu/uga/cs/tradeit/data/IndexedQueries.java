@@ -0,0 +1,69 @@
+package edu.uga.cs.tradeit.data;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IndexedQueries lists every child the app orders a query by, and where.
+ *
+ * The server only sorts and filters a query when database.rules.json has an .indexOn for the
+ * child at that path. Without one the SDK downloads the whole node and sorts it on the device,
+ * logging nothing but a warning. Every orderByChild in the app goes through a Spec here, and
+ * IndexedQueriesTest checks each Spec against the rules file and the database emulator, so a
+ * new query without an index fails the tests instead of quietly slowing down a screen.
+ */
+public final class IndexedQueries {
+
+    /**
+     * One ordered query: the path it runs on, with $ segments as in the rules file, and the child
+     * it is ordered by
+     */
+    public static final class Spec {
+        public final String path;
+        public final String orderBy;
+
+        Spec(String path, String orderBy) {
+            this.path = path;
+            this.orderBy = orderBy;
+        }
+
+        /**
+         * Orders the node, which must be the node at this Spec's path
+         */
+        @NonNull
+        public Query on(@NonNull Query node) {
+            return node.orderByChild(orderBy);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return path + " by " + orderBy;
+        }
+    }
+
+    public static final Spec CATEGORIES_BY_NAME = new Spec("categories", "name");
+    public static final Spec ITEMS_BY_DATE = new Spec("items/$catId", "postedDate");
+    public static final Spec ITEMS_BY_PRICE = new Spec("items/$catId", "priceCents");
+    public static final Spec ITEMS_BY_SORT_KEY = new Spec("itemsByKey", "sortKey");
+    public static final Spec USER_ITEMS_BY_DATE = new Spec("users/$uid/items", "postedDate");
+    public static final Spec USER_PENDING_BY_DATE = new Spec("users/$uid/pending", "postedDate");
+    public static final Spec USER_COMPLETED_BY_DATE = new Spec("users/$uid/completed", "completionDate");
+
+    public static final List<Spec> ALL = Collections.unmodifiableList(Arrays.asList(
+            CATEGORIES_BY_NAME,
+            ITEMS_BY_DATE,
+            ITEMS_BY_PRICE,
+            ITEMS_BY_SORT_KEY,
+            USER_ITEMS_BY_DATE,
+            USER_PENDING_BY_DATE,
+            USER_COMPLETED_BY_DATE));
+
+    private IndexedQueries() {
+    }
+}
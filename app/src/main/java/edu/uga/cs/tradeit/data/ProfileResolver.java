@@ -0,0 +1,136 @@
+package edu.uga.cs.tradeit.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Profile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ProfileResolver turns user ids into public profiles for the transaction screens.
+ *
+ * Rows ask for the profile they need while binding. Requests made in the same frame are
+ * collected and sent together once the frame is done, so a screen of rows costs one burst of
+ * reads over the single database connection instead of a read per row as it binds. Every row
+ * waiting on the same user shares one read. Only profiles/{uid} is read, never the user's node.
+ *
+ * Resolved profiles are kept in an LRU shared by every screen, so going back and forth between
+ * Pending and Completed shows names straight away. Only used on the main thread.
+ */
+public final class ProfileResolver {
+    private static final String TAG = "ProfileResolver";
+
+    // Profiles kept in memory, each is a uid and a short name
+    private static final int CACHE_SIZE = 200;
+
+    /**
+     * Told the profile once it is known, on the main thread. A user without a profile, or whose
+     * profile could not be read, resolves to one with no display name.
+     */
+    public interface Callback {
+        void onResolved(@NonNull String uid, @NonNull Profile profile);
+    }
+
+    private static ProfileResolver instance;
+
+    private final DatabaseReference profilesRef;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Profile> cache = new LruCache<>(CACHE_SIZE);
+
+    // Callbacks for every uid being read or queued to be read
+    private final Map<String, List<Callback>> waiting = new HashMap<>();
+    // Uids requested since the last flush, in the order rows asked for them
+    private final Set<String> queued = new LinkedHashSet<>();
+    private boolean flushPosted;
+
+    private final Runnable flush = this::flush;
+
+    private ProfileResolver(DatabaseReference profilesRef) {
+        this.profilesRef = profilesRef;
+    }
+
+    public static ProfileResolver getInstance() {
+        if (instance == null) {
+            instance = new ProfileResolver(FirebaseDatabase.getInstance().getReference("profiles"));
+        }
+        return instance;
+    }
+
+    /**
+     * The profile if it has already been resolved, without reading anything
+     */
+    @Nullable
+    public Profile getCached(@NonNull String uid) {
+        return cache.get(uid);
+    }
+
+    /**
+     * Calls back with the user's profile, straight away when it is cached
+     */
+    public void resolve(@NonNull String uid, @NonNull Callback callback) {
+        Profile cached = cache.get(uid);
+        if (cached != null) {
+            callback.onResolved(uid, cached);
+            return;
+        }
+
+        List<Callback> callbacks = waiting.get(uid);
+        if (callbacks != null) {
+            // Already queued or being read
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        waiting.put(uid, callbacks);
+        queued.add(uid);
+
+        // Posted behind the layout pass that is binding rows right now
+        if (!flushPosted) {
+            flushPosted = true;
+            mainHandler.post(flush);
+        }
+    }
+
+    // Sends every queued read at once, the database pipelines them on its one connection
+    private void flush() {
+        flushPosted = false;
+        for (String uid : queued) {
+            Metrics.time("query.profile", profilesRef.child(uid).get())
+                    .addOnCompleteListener(task -> {
+                        List<Callback> callbacks = waiting.remove(uid);
+                        Profile profile;
+                        if (task.isSuccessful()) {
+                            profile = Profile.fromSnapshot(task.getResult());
+                            cache.put(uid, profile);
+                        } else {
+                            // Waiting rows show the fallback, it is not cached so the next bind retries
+                            Log.e(TAG, "Profile read failed for " + uid, task.getException());
+                            profile = new Profile();
+                            profile.uid = uid;
+                        }
+                        if (callbacks != null) {
+                            for (Callback callback : callbacks) {
+                                callback.onResolved(uid, profile);
+                            }
+                        }
+                    });
+        }
+        queued.clear();
+    }
+}
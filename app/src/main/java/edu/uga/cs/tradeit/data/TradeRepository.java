@@ -0,0 +1,368 @@
+package edu.uga.cs.tradeit.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+import edu.uga.cs.tradeit.model.Item;
+import edu.uga.cs.tradeit.model.Price;
+import edu.uga.cs.tradeit.model.Transaction;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TradeRepository owns every write that touches more than one copy of the same data.
+ *
+ * Each user action is built into a single map of root relative paths and sent with one
+ * updateChildren call, so it costs one round trip and either every copy changes or none do.
+ * The Counters the change affects are part of the same map.
+ * The time each one takes to be acknowledged by the server is recorded under "write.".
+ */
+public class TradeRepository {
+
+    // Timestamps are subtracted from this so newer items get smaller sort keys
+    private static final long MAX_TIMESTAMP = 9999999999999L;
+
+    // How long an item stays in the recentItems feed
+    public static final long RECENT_RETENTION_MS = 7L * 24 * 60 * 60 * 1000;
+    // Most expired feed entries removed by one trim
+    private static final int TRIM_BATCH = 50;
+
+    /**
+     * A write the server refused, keeping the DatabaseError code that a plain Task failure drops
+     */
+    public static final class WriteException extends Exception {
+        public final int code;
+
+        WriteException(@NonNull DatabaseError error) {
+            super(error.getMessage(), error.toException());
+            this.code = error.getCode();
+        }
+    }
+
+    private static TradeRepository instance;
+
+    private final DatabaseReference rootRef;
+
+    // Difference between the server clock and this device's, kept current by the database
+    private volatile long serverTimeOffset;
+
+    private TradeRepository(DatabaseReference rootRef) {
+        this.rootRef = rootRef;
+        rootRef.child(".info/serverTimeOffset").addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Long offset = snapshot.getValue(Long.class);
+                serverTimeOffset = offset != null ? offset : 0;
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+            }
+        });
+    }
+
+    public static synchronized TradeRepository getInstance() {
+        if (instance == null) {
+            instance = new TradeRepository(FirebaseDatabase.getInstance().getReference());
+        }
+        return instance;
+    }
+
+    /**
+     * Generates a new item key without writing anything
+     */
+    @Nullable
+    public String newItemId(@NonNull String catId) {
+        return rootRef.child("items").child(catId).push().getKey();
+    }
+
+    /**
+     * Sort key for the itemsByKey index: category, then price bucket, then newest first.
+     * A range scan over one prefix answers "newest in this category and price band".
+     */
+    @NonNull
+    public static String sortKey(@NonNull String catId, @Nullable Long priceCents, long postedDate) {
+        return String.format(Locale.US, "%s_%02d_%s",
+                catId, Price.bucket(priceCents), invertedTime(postedDate));
+    }
+
+    /**
+     * Key in the recentItems feed, newest first when read in key order
+     */
+    @NonNull
+    public static String feedKey(long postedDate, @NonNull String itemId) {
+        return invertedTime(postedDate) + "_" + itemId;
+    }
+
+    /**
+     * Prefix of every sort key in one category and price bucket
+     */
+    @NonNull
+    public static String sortKeyPrefix(@NonNull String catId, int bucket) {
+        return String.format(Locale.US, "%s_%02d_", catId, bucket);
+    }
+
+    /**
+     * Writes a new item to its category, the poster's list, the sorted index and the recent feed,
+     * and bumps the poster's and the category's counts. Expired feed entries are trimmed once the
+     * post is saved.
+     * The photo URLs are null for an item posted without a photo.
+     */
+    public Task<Void> postItem(@NonNull String catId, @NonNull String itemId, @NonNull String name,
+                               long priceCents, @NonNull String posterUid,
+                               @Nullable String thumbUrl, @Nullable String photoUrl) {
+        Map<String, Object> itemData = new HashMap<>();
+        itemData.put("id", itemId); // ID
+        itemData.put("name", name); // Name
+        itemData.put("postedDate", ServerValue.TIMESTAMP); // Server Timestamp
+        itemData.put("posterUid", posterUid); // Owner of the item
+        putPrice(itemData, priceCents); // Price
+        itemData.put("catId", catId); // Which category it is in
+        if (thumbUrl != null && photoUrl != null) {
+            itemData.put("thumbUrl", thumbUrl); // Photo shown in list rows
+            itemData.put("photoUrl", photoUrl); // Full size photo
+        }
+
+        // The server timestamp is not known yet, so the index and feed keys use the estimated
+        // server time. The feed key is kept on the item so its entry can be found again.
+        long now = estimatedServerTime();
+        String feedKey = feedKey(now, itemId);
+        itemData.put("feedKey", feedKey);
+
+        Map<String, Object> indexData = new HashMap<>(itemData);
+        indexData.put("sortKey", sortKey(catId, priceCents, now));
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(categoryItemPath(catId, itemId), itemData);
+        updates.put(userItemPath(posterUid, itemId), itemData);
+        updates.put(indexPath(itemId), indexData);
+        updates.put(feedPath(feedKey), itemData);
+        new Counters()
+                .user(posterUid, Counters.LISTED, 1)
+                .categoryItems(catId, 1)
+                .putInto(updates);
+        return Metrics.time("write.postItem", update(updates))
+                .addOnSuccessListener(unused -> trimRecentItems());
+    }
+
+    /**
+     * Removes up to TRIM_BATCH feed entries older than the retention, so the feed stays bounded
+     * without a server job. Every post runs one, which keeps up with the rate entries expire.
+     */
+    public void trimRecentItems() {
+        String cutoff = invertedTime(estimatedServerTime() - RECENT_RETENTION_MS);
+        Query expired = rootRef.child("recentItems").orderByKey()
+                .startAt(cutoff)
+                .limitToFirst(TRIM_BATCH);
+        expired.get().addOnSuccessListener(snapshot -> {
+            Map<String, Object> updates = new HashMap<>();
+            for (DataSnapshot entry : snapshot.getChildren()) {
+                updates.put(feedPath(entry.getKey()), null);
+            }
+            if (!updates.isEmpty()) {
+                rootRef.updateChildren(updates);
+            }
+        });
+    }
+
+    /**
+     * Changes an item's name and price in both of its copies and rewrites its index entry
+     */
+    public Task<Void> updateItem(@NonNull Item item, @NonNull String catId,
+                                 @NonNull String name, long priceCents) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", name);
+        putPrice(fields, priceCents);
+        fields.put("updatedDate", ServerValue.TIMESTAMP);
+
+        Map<String, Object> updates = new HashMap<>();
+        putFields(updates, categoryItemPath(catId, item.id), fields);
+        putFields(updates, userItemPath(item.posterUid, item.id), fields);
+
+        // Written whole, so an item the index has not seen yet gets a complete entry
+        Map<String, Object> indexData = new HashMap<>(fields);
+        indexData.put("id", item.id);
+        indexData.put("postedDate", item.postedDate);
+        indexData.put("posterUid", item.posterUid);
+        indexData.put("catId", catId);
+        indexData.put("thumbUrl", item.thumbUrl);
+        indexData.put("photoUrl", item.photoUrl);
+        // Rows paged from the index need it to remove the feed entry when bought or deleted
+        if (item.feedKey != null) {
+            indexData.put("feedKey", item.feedKey);
+        }
+        long postedDate = item.postedDate != null ? item.postedDate : estimatedServerTime();
+        indexData.put("sortKey", sortKey(catId, priceCents, postedDate));
+        updates.put(indexPath(item.id), indexData);
+
+        // The feed entry is also written whole, but not once it has expired or it would come back
+        if (item.feedKey != null && !isExpiredFeedKey(item.feedKey)) {
+            Map<String, Object> feedData = new HashMap<>(indexData);
+            feedData.remove("sortKey");
+            updates.put(feedPath(item.feedKey), feedData);
+        }
+        return Metrics.time("write.updateItem", update(updates));
+    }
+
+    /**
+     * Removes an item from both of its copies and the index and lowers the poster's and the
+     * category's counts
+     */
+    public Task<Void> deleteItem(@NonNull Item item, @NonNull String catId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(categoryItemPath(catId, item.id), null);
+        updates.put(userItemPath(item.posterUid, item.id), null);
+        updates.put(indexPath(item.id), null);
+        if (item.feedKey != null) {
+            updates.put(feedPath(item.feedKey), null);
+        }
+        Counters counters = new Counters().categoryItems(catId, -1);
+        if (item.posterUid != null) {
+            counters.user(item.posterUid, Counters.LISTED, -1);
+        }
+        counters.putInto(updates);
+        return Metrics.time("write.deleteItem", update(updates));
+    }
+
+    /**
+     * Claims the item for the buyer: creates the pending transaction, indexes it under both users
+     * and removes the item from its category, the seller's list and the index, all in one update.
+     * Both users' pending counts and the listed counts move with it.
+     *
+     * The rules in database.rules.json only allow an item to be removed while it still exists, so
+     * when two buyers race for the same item the second update is rejected as a whole and its task
+     * fails with a WriteException whose code is PERMISSION_DENIED instead of creating a second trade.
+     */
+    public Task<Void> requestItem(@NonNull Item item, @NonNull String catId, @NonNull String buyerUid) {
+        String transId = rootRef.child("transactions").child("pending").push().getKey();
+
+        Map<String, Object> trans = new HashMap<>();
+        trans.put("buyerUid", buyerUid); // Buyer ID
+        trans.put("sellerUid", item.posterUid); // Seller ID
+        trans.put("itemName", item.name); // Item
+        trans.put("itemId", item.id); // Claimed item
+        trans.put("catId", catId); // Category ID
+        trans.put("postedDate", ServerValue.TIMESTAMP); // When its posted
+        trans.put("price", Price.display(item)); // Price
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("transactions/pending/" + transId, trans);
+        updates.put("users/" + buyerUid + "/pending/" + transId, trans);
+        if (item.posterUid != null) {
+            updates.put("users/" + item.posterUid + "/pending/" + transId, trans);
+            updates.put(userItemPath(item.posterUid, item.id), null);
+        }
+        updates.put(categoryItemPath(catId, item.id), null);
+        updates.put(indexPath(item.id), null);
+        if (item.feedKey != null) {
+            updates.put(feedPath(item.feedKey), null);
+        }
+        Counters counters = new Counters()
+                .categoryItems(catId, -1)
+                .user(buyerUid, Counters.PENDING, 1);
+        if (item.posterUid != null) {
+            counters.user(item.posterUid, Counters.LISTED, -1)
+                    .user(item.posterUid, Counters.PENDING, 1);
+        }
+        counters.putInto(updates);
+        return Metrics.time("write.requestItem", update(updates));
+    }
+
+    /**
+     * Moves a pending transaction to completed using the row the caller already has, so nothing
+     * is read first. Both users' index entries move in the same update, so the trade is never in
+     * both states or in neither, and so do their pending and completed counts. Confirming a trade
+     * that is no longer pending is rejected by the rules.
+     */
+    public Task<Void> confirmTransaction(@NonNull Transaction trans) {
+        Map<String, Object> completed = trans.toMap();
+        completed.put("completionDate", ServerValue.TIMESTAMP);
+
+        Counters counters = new Counters()
+                .user(trans.buyerUid, Counters.PENDING, -1)
+                .user(trans.buyerUid, Counters.COMPLETED, 1);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("transactions/pending/" + trans.id, null);
+        updates.put("transactions/completed/" + trans.id, completed);
+        updates.put("users/" + trans.buyerUid + "/pending/" + trans.id, null);
+        updates.put("users/" + trans.buyerUid + "/completed/" + trans.id, completed);
+        if (trans.sellerUid != null) {
+            updates.put("users/" + trans.sellerUid + "/pending/" + trans.id, null);
+            updates.put("users/" + trans.sellerUid + "/completed/" + trans.id, completed);
+            counters.user(trans.sellerUid, Counters.PENDING, -1)
+                    .user(trans.sellerUid, Counters.COMPLETED, 1);
+        }
+        counters.putInto(updates);
+        return Metrics.time("write.confirmTransaction", update(updates));
+    }
+
+    // One root updateChildren whose task fails with a WriteException carrying the error code
+    private Task<Void> update(Map<String, Object> updates) {
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        rootRef.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                done.setResult(null);
+            } else {
+                done.setException(new WriteException(error));
+            }
+        });
+        return done.getTask();
+    }
+
+    // priceCents is what queries order by, isFree and the display text are derived from it
+    static void putPrice(Map<String, Object> fields, long priceCents) {
+        fields.put("priceCents", priceCents);
+        fields.put("isFree", priceCents == 0);
+        fields.put("price", Price.format(priceCents));
+    }
+
+    private static String categoryItemPath(String catId, String itemId) {
+        return "items/" + catId + "/" + itemId;
+    }
+
+    private static String userItemPath(String uid, String itemId) {
+        return "users/" + uid + "/items/" + itemId;
+    }
+
+    private static String indexPath(String itemId) {
+        return "itemsByKey/" + itemId;
+    }
+
+    private static String feedPath(String feedKey) {
+        return "recentItems/" + feedKey;
+    }
+
+    // Fixed width so string order matches time order, newest first
+    private static String invertedTime(long time) {
+        return String.format(Locale.US, "%013d", MAX_TIMESTAMP - time);
+    }
+
+    private boolean isExpiredFeedKey(String feedKey) {
+        return feedKey.compareTo(invertedTime(estimatedServerTime() - RECENT_RETENTION_MS)) >= 0;
+    }
+
+    private long estimatedServerTime() {
+        return System.currentTimeMillis() + serverTimeOffset;
+    }
+
+    // Flattens fields into path/field entries so sibling fields at the path are left alone
+    private static void putFields(Map<String, Object> updates, String path, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            updates.put(path + "/" + field.getKey(), field.getValue());
+        }
+    }
+}
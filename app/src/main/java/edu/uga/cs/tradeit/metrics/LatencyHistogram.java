@@ -0,0 +1,93 @@
+package edu.uga.cs.tradeit.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * LatencyHistogram counts how many samples of one operation fell into each latency bucket.
+ *
+ * Buckets grow roughly 2.5x apart from 50 microseconds to 10 seconds, so a bind that takes a
+ * fraction of a millisecond and a write waiting on the network both land in a meaningful bucket.
+ * Percentiles are read off the bucket bounds, which is exact enough to spot a shift between
+ * builds while costing a fixed few hundred bytes per operation.
+ */
+public final class LatencyHistogram {
+
+    // Upper bound of each bucket in microseconds, the last bucket takes everything above
+    static final long[] BOUNDS_US = {
+            50, 100, 250, 500,
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    private final long[] counts = new long[BOUNDS_US.length + 1];
+    private long count;
+    private long totalUs;
+    private long maxUs;
+
+    /**
+     * Adds one sample, safe to call from any thread
+     */
+    public synchronized void record(long durationNanos) {
+        long us = Math.max(0, durationNanos / 1_000);
+        int bucket = 0;
+        while (bucket < BOUNDS_US.length && us > BOUNDS_US[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        totalUs += us;
+        maxUs = Math.max(maxUs, us);
+    }
+
+    synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalUs = 0;
+        maxUs = 0;
+    }
+
+    /**
+     * Consistent copy of the histogram for display or export
+     */
+    @NonNull
+    public synchronized Summary summary() {
+        return new Summary(counts.clone(), count, totalUs, maxUs);
+    }
+
+    /**
+     * Point in time copy of a histogram, all times in milliseconds
+     */
+    public static final class Summary {
+        public final long[] counts;
+        public final long count;
+        public final double meanMs;
+        public final double maxMs;
+
+        Summary(long[] counts, long count, long totalUs, long maxUs) {
+            this.counts = counts;
+            this.count = count;
+            this.meanMs = count > 0 ? totalUs / 1000.0 / count : 0;
+            this.maxMs = maxUs / 1000.0;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, or the max for the last bucket
+         */
+        public double percentileMs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_US.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(BOUNDS_US[i] / 1000.0, maxMs);
+                }
+            }
+            return maxMs;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package edu.uga.cs.tradeit.metrics;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics wraps the app's hot paths in trace sections and keeps a latency histogram per operation.
+ *
+ * Code paths that run on one thread (parse, bind) use begin and end, which show up as sections
+ * in a system trace. Paths that wait on the database (a query's first rows, a write's ack) use a
+ * Timer, which shows as an async section on Android 10 and up. Operation names start with what
+ * they measure: "parse.", "bind." and "compress." are our own code, "query.", "write." and
+ * "upload." are mostly the network, so a regression in one can be told apart from the other.
+ * Failed operations are kept under their own name.
+ *
+ * Recording is a clock read and a short synchronized update, so it stays on in every build.
+ */
+public final class Metrics {
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    // Async trace sections are matched by name and cookie
+    private static final AtomicInteger COOKIES = new AtomicInteger();
+
+    private Metrics() {
+    }
+
+    /**
+     * Opens a trace section and returns the start time to hand to end on the same thread
+     */
+    public static long begin(@NonNull String name) {
+        Trace.beginSection(name);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Closes the section opened by begin and records its duration
+     */
+    public static void end(@NonNull String name, long start) {
+        Trace.endSection();
+        record(name, SystemClock.elapsedRealtimeNanos() - start);
+    }
+
+    /**
+     * Starts timing an operation that finishes on a later callback
+     */
+    @NonNull
+    public static Timer start(@NonNull String name) {
+        return new Timer(name);
+    }
+
+    /**
+     * Records how long the task takes to complete, the task is returned unchanged
+     */
+    @NonNull
+    public static <T> Task<T> time(@NonNull String name, @NonNull Task<T> task) {
+        Timer timer = start(name);
+        task.addOnCompleteListener(done -> timer.finish(done.isSuccessful()));
+        return task;
+    }
+
+    public static void record(@NonNull String name, long durationNanos) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            HISTOGRAMS.putIfAbsent(name, new LatencyHistogram());
+            histogram = HISTOGRAMS.get(name);
+        }
+        histogram.record(durationNanos);
+    }
+
+    /**
+     * Every operation recorded so far, sorted by name
+     */
+    @NonNull
+    public static Map<String, LatencyHistogram.Summary> summaries() {
+        Map<String, LatencyHistogram.Summary> result = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().summary());
+        }
+        return result;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes every histogram as CSV: one row per operation with its percentiles and bucket counts
+     */
+    public static void writeCsv(@NonNull Writer out, @NonNull String appVersion) throws IOException {
+        out.write(String.format(Locale.US, "# TradeIt %s on %s %s, Android %d%n",
+                appVersion, Build.MANUFACTURER, Build.MODEL, Build.VERSION.SDK_INT));
+
+        StringBuilder header = new StringBuilder("operation,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+        for (long bound : LatencyHistogram.BOUNDS_US) {
+            header.append(",le_").append(bound).append("us");
+        }
+        header.append(",gt_").append(LatencyHistogram.BOUNDS_US[LatencyHistogram.BOUNDS_US.length - 1])
+                .append("us\n");
+        out.write(header.toString());
+
+        for (Map.Entry<String, LatencyHistogram.Summary> entry : summaries().entrySet()) {
+            LatencyHistogram.Summary s = entry.getValue();
+            out.write(String.format(Locale.US, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f",
+                    entry.getKey(), s.count, s.meanMs, s.percentileMs(50), s.percentileMs(90),
+                    s.percentileMs(99), s.maxMs));
+            for (long bucket : s.counts) {
+                out.write("," + bucket);
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Times one operation across threads. Only the first finish or cancel counts.
+     */
+    public static final class Timer {
+        private final String name;
+        private final int cookie;
+        private final long start;
+        private final AtomicInteger state = new AtomicInteger();
+
+        Timer(String name) {
+            this.name = name;
+            this.cookie = COOKIES.incrementAndGet();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                Trace.beginAsyncSection(name, cookie);
+            }
+            this.start = SystemClock.elapsedRealtimeNanos();
+        }
+
+        public void finish() {
+            finish(true);
+        }
+
+        /**
+         * Records the duration, under name.failed when the operation did not succeed
+         */
+        public void finish(boolean success) {
+            if (!state.compareAndSet(0, 1)) {
+                return;
+            }
+            long duration = SystemClock.elapsedRealtimeNanos() - start;
+            endSection();
+            record(success ? name : name + ".failed", duration);
+        }
+
+        /**
+         * Drops the timing, for an operation that was abandoned before it finished
+         */
+        public void cancel() {
+            if (state.compareAndSet(0, 2)) {
+                endSection();
+            }
+        }
+
+        private void endSection() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                Trace.endAsyncSection(name, cookie);
+            }
+        }
+    }
+}
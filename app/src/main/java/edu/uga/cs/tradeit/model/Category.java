@@ -0,0 +1,59 @@
+package edu.uga.cs.tradeit.model;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+
+/**
+ * A trade category's metadata, stored at categories/{id}. Its items live under items/{id}.
+ * The item count is kept in shards under itemShards, see Counters.
+ */
+public class Category {
+    public String id;
+    public String name;
+    public String creatorUid;
+    public Long createdDate;
+    public long itemCount;
+
+    public Category() {
+    }
+
+    /**
+     * Reads the snapshot's children straight into the fields in a single pass
+     */
+    @NonNull
+    public static Category fromSnapshot(@NonNull DataSnapshot snapshot) {
+        Category category = new Category();
+        category.id = snapshot.getKey();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) {
+                continue;
+            }
+            Object value = child.getValue();
+            switch (key) {
+                case "name":
+                    category.name = SnapshotFields.asString(value);
+                    break;
+                case "creatorUid":
+                    category.creatorUid = SnapshotFields.asString(value);
+                    break;
+                case "createdDate":
+                    category.createdDate = SnapshotFields.asLong(value);
+                    break;
+                case "itemShards":
+                    for (DataSnapshot shard : child.getChildren()) {
+                        category.itemCount += SnapshotFields.asLong(shard.getValue(), 0);
+                    }
+                    break;
+                case "itemCount":
+                    // Count from before the shards, until the migration folds it into one
+                    category.itemCount += SnapshotFields.asLong(value, 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return category;
+    }
+}
@@ -0,0 +1,96 @@
+package edu.uga.cs.tradeit.model;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+
+/**
+ * An item posted for trade, stored at items/{catId}/{id} and copied to users/{posterUid}/items/{id}
+ */
+public class Item {
+    public String id;
+    public String name;
+    // Display text written alongside priceCents, kept for older rows and transaction copies
+    public String price;
+    // Price in cents, 0 when free. Missing on items that could not be migrated.
+    public Long priceCents;
+    public Boolean isFree;
+    public String posterUid;
+    public String catId;
+    public Long postedDate;
+    public Long updatedDate;
+    // Key of the item's entry in recentItems, the entry may already have been trimmed
+    public String feedKey;
+    // Download URLs of the item's photo, both missing when it has none
+    public String thumbUrl;
+    public String photoUrl;
+
+    // Display text for postedDate, filled in the first time the item is bound to a row
+    public String postedDateText;
+    // Display text for the price, formatted once while the snapshot is decoded
+    public String priceText;
+
+    public Item() {
+    }
+
+    /**
+     * Reads the snapshot's children straight into the fields in a single pass
+     */
+    @NonNull
+    public static Item fromSnapshot(@NonNull DataSnapshot snapshot) {
+        Item item = new Item();
+        item.id = snapshot.getKey();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) {
+                continue;
+            }
+            Object value = child.getValue();
+            switch (key) {
+                case "id":
+                    // Copies outside items/{catId} are not keyed by the item id
+                    if (value instanceof String) {
+                        item.id = (String) value;
+                    }
+                    break;
+                case "name":
+                    item.name = SnapshotFields.asString(value);
+                    break;
+                case "price":
+                    item.price = SnapshotFields.asString(value);
+                    break;
+                case "priceCents":
+                    item.priceCents = SnapshotFields.asLong(value);
+                    break;
+                case "isFree":
+                    item.isFree = SnapshotFields.asBoolean(value);
+                    break;
+                case "posterUid":
+                    item.posterUid = SnapshotFields.asString(value);
+                    break;
+                case "catId":
+                    item.catId = SnapshotFields.asString(value);
+                    break;
+                case "postedDate":
+                    item.postedDate = SnapshotFields.asLong(value);
+                    break;
+                case "updatedDate":
+                    item.updatedDate = SnapshotFields.asLong(value);
+                    break;
+                case "feedKey":
+                    item.feedKey = SnapshotFields.asString(value);
+                    break;
+                case "thumbUrl":
+                    item.thumbUrl = SnapshotFields.asString(value);
+                    break;
+                case "photoUrl":
+                    item.photoUrl = SnapshotFields.asString(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+        item.priceText = Price.display(item);
+        return item;
+    }
+}
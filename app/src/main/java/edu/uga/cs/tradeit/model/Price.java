@@ -0,0 +1,86 @@
+package edu.uga.cs.tradeit.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Converts between what the user types as a price and the whole number of cents that is stored in
+ * priceCents, so prices can be ordered and range queried on the server.
+ */
+public final class Price {
+
+    // Upper bounds in cents of the buckets used by the composite item index, bucket 0 is free
+    private static final long[] BUCKET_LIMITS = {0, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000};
+
+    // Bucket for items without a numeric price, sorts after every priced bucket
+    public static final int NO_PRICE_BUCKET = 99;
+
+    private Price() {
+    }
+
+    /**
+     * Coarse price band 0 (free) to 9 (over $1000), so items of similar price sort together
+     */
+    public static int bucket(@Nullable Long cents) {
+        if (cents == null) {
+            return NO_PRICE_BUCKET;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS.length && cents > BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Parses text such as "12", "12.5", "$1,200.00" or "free" into cents.
+     * Empty text and "free" are 0. Returns null when the text is not a price.
+     */
+    @Nullable
+    public static Long parseCents(@Nullable String text) {
+        if (text == null) {
+            return 0L;
+        }
+        String cleaned = text.trim().replace("$", "").replace(",", "");
+        if (cleaned.isEmpty() || cleaned.equalsIgnoreCase("free")) {
+            return 0L;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(cleaned);
+            if (amount.signum() < 0 || amount.scale() > 2) {
+                return null;
+            }
+            return amount.movePointRight(2).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Display text for an amount, "free" for 0
+     */
+    @NonNull
+    public static String format(long cents) {
+        if (cents == 0) {
+            return "free";
+        }
+        return String.format(Locale.US, "$%d.%02d", cents / 100, cents % 100);
+    }
+
+    /**
+     * Display text for an item, falling back to the old free text price for unmigrated items
+     */
+    @NonNull
+    public static String display(@NonNull Item item) {
+        if (Boolean.TRUE.equals(item.isFree)) {
+            return "free";
+        }
+        if (item.priceCents != null) {
+            return format(item.priceCents);
+        }
+        return item.price != null && !item.price.isEmpty() ? item.price : "free";
+    }
+}
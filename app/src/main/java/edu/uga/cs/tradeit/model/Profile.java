@@ -0,0 +1,61 @@
+package edu.uga.cs.tradeit.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+
+/**
+ * The public part of a user, stored at profiles/{uid} so other users can show who they are
+ * trading with without reading users/{uid} and everything under it
+ */
+public class Profile {
+    // Longest display name database.rules.json accepts
+    public static final int MAX_DISPLAY_NAME = 50;
+
+    public String uid;
+    public String displayName;
+
+    public Profile() {
+    }
+
+    /**
+     * Reads the snapshot's children straight into the fields in a single pass
+     */
+    @NonNull
+    public static Profile fromSnapshot(@NonNull DataSnapshot snapshot) {
+        Profile profile = new Profile();
+        profile.uid = snapshot.getKey();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            if ("displayName".equals(child.getKey())) {
+                profile.displayName = SnapshotFields.asString(child.getValue());
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Name shown for a new account, the part of the email before the @, cut to the longest name
+     * the rules accept
+     */
+    @NonNull
+    public static String defaultDisplayName(@NonNull String email) {
+        int at = email.indexOf('@');
+        String name = at > 0 ? email.substring(0, at) : email;
+        if (name.length() <= MAX_DISPLAY_NAME) {
+            return name;
+        }
+        // Never ends on half of a surrogate pair
+        int end = Character.isHighSurrogate(name.charAt(MAX_DISPLAY_NAME - 1))
+                ? MAX_DISPLAY_NAME - 1 : MAX_DISPLAY_NAME;
+        return name.substring(0, end);
+    }
+
+    /**
+     * Name to show for the user, also for users who never got a profile
+     */
+    @NonNull
+    public static String display(@Nullable Profile profile) {
+        return profile != null && profile.displayName != null ? profile.displayName : "unknown user";
+    }
+}
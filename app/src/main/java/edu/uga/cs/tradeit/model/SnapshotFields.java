@@ -0,0 +1,26 @@
+package edu.uga.cs.tradeit.model;
+
+/**
+ * Small helpers for reading raw snapshot values into typed fields without throwing on bad data
+ */
+final class SnapshotFields {
+
+    private SnapshotFields() {
+    }
+
+    static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    static Long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    static long asLong(Object value, long fallback) {
+        return value instanceof Number ? ((Number) value).longValue() : fallback;
+    }
+
+    static Boolean asBoolean(Object value) {
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+}
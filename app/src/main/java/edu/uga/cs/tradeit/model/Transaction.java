@@ -0,0 +1,95 @@
+package edu.uga.cs.tradeit.model;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trade between a buyer and a seller, stored at transactions/pending/{id} or
+ * transactions/completed/{id} and indexed under users/{uid} for both parties
+ */
+public class Transaction {
+    public String id;
+    public String buyerUid;
+    public String sellerUid;
+    public String itemName;
+    public String itemId;
+    public String catId;
+    public String price;
+    public Long postedDate;
+    public Long completionDate;
+
+    public Transaction() {
+    }
+
+    /**
+     * Reads the snapshot's children straight into the fields in a single pass
+     */
+    @NonNull
+    public static Transaction fromSnapshot(@NonNull DataSnapshot snapshot) {
+        Transaction trans = new Transaction();
+        trans.id = snapshot.getKey();
+        for (DataSnapshot child : snapshot.getChildren()) {
+            String key = child.getKey();
+            if (key == null) {
+                continue;
+            }
+            Object value = child.getValue();
+            switch (key) {
+                case "buyerUid":
+                    trans.buyerUid = SnapshotFields.asString(value);
+                    break;
+                case "sellerUid":
+                    trans.sellerUid = SnapshotFields.asString(value);
+                    break;
+                case "itemName":
+                    trans.itemName = SnapshotFields.asString(value);
+                    break;
+                case "itemId":
+                    trans.itemId = SnapshotFields.asString(value);
+                    break;
+                case "catId":
+                    trans.catId = SnapshotFields.asString(value);
+                    break;
+                case "price":
+                    trans.price = SnapshotFields.asString(value);
+                    break;
+                case "postedDate":
+                    trans.postedDate = SnapshotFields.asLong(value);
+                    break;
+                case "completionDate":
+                    trans.completionDate = SnapshotFields.asLong(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return trans;
+    }
+
+    /**
+     * Builds the stored form of the transaction, leaving out the key and any unset fields
+     */
+    @NonNull
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        putIfSet(map, "buyerUid", buyerUid);
+        putIfSet(map, "sellerUid", sellerUid);
+        putIfSet(map, "itemName", itemName);
+        putIfSet(map, "itemId", itemId);
+        putIfSet(map, "catId", catId);
+        putIfSet(map, "price", price);
+        putIfSet(map, "postedDate", postedDate);
+        putIfSet(map, "completionDate", completionDate);
+        return map;
+    }
+
+    private static void putIfSet(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
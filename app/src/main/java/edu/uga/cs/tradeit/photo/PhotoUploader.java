@@ -0,0 +1,239 @@
+package edu.uga.cs.tradeit.photo;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import edu.uga.cs.tradeit.metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * PhotoUploader shrinks a picked photo on the device and uploads it to Storage as a full size
+ * JPEG and a thumbnail, at itemPhotos/{itemId}/full.jpg and thumb.jpg. Both carry the poster's
+ * uid as ownerUid metadata, storage.rules only let that user replace or delete them.
+ *
+ * A camera photo can be 12 megapixels and several megabytes. It is decoded with inSampleSize so
+ * the biggest bitmap held is only a little over the full size copy, and list rows only ever
+ * download the thumbnail.
+ */
+public final class PhotoUploader {
+    private static final String TAG = "PhotoUploader";
+
+    // Longest edge of each stored copy. The thumbnail covers a row's image at xxxhdpi.
+    static final int FULL_MAX_PX = 1280;
+    static final int THUMB_MAX_PX = 320;
+    private static final int FULL_QUALITY = 80;
+    private static final int THUMB_QUALITY = 70;
+
+    private static final String FULL_NAME = "full.jpg";
+    private static final String THUMB_NAME = "thumb.jpg";
+
+    // Each item's photos are written once, so anything between here and Storage may keep them
+    private static final String CACHE_CONTROL = "public, max-age=31536000";
+
+    // Custom metadata key storage.rules compares with the signed in user
+    private static final String OWNER_UID = "ownerUid";
+
+    // Decoding is memory heavy, one photo at a time is enough for a user picking them by hand
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "photo-compress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Download URLs of an uploaded photo's two copies
+     */
+    public static final class Urls {
+        public final String thumbUrl;
+        public final String photoUrl;
+
+        Urls(String thumbUrl, String photoUrl) {
+            this.thumbUrl = thumbUrl;
+            this.photoUrl = photoUrl;
+        }
+    }
+
+    private PhotoUploader() {
+    }
+
+    /**
+     * Compresses the photo off the main thread, then uploads both copies. The photo is read
+     * before anything is uploaded, so the caller only needs its read permission until then.
+     */
+    @NonNull
+    public static Task<Urls> upload(@NonNull Context context, @NonNull Uri photo,
+                                    @NonNull String itemId, @NonNull String ownerUid) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        Task<Urls> upload = Tasks.call(EXECUTOR, () -> compress(resolver, photo))
+                .onSuccessTask(copies -> {
+                    StorageReference dir = photosRef(itemId);
+                    Task<Uri> thumb = put(dir.child(THUMB_NAME), copies[1], ownerUid);
+                    Task<Uri> full = put(dir.child(FULL_NAME), copies[0], ownerUid);
+                    return Tasks.whenAll(thumb, full).continueWith(task -> {
+                        if (!task.isSuccessful()) {
+                            throw task.getException();
+                        }
+                        return new Urls(thumb.getResult().toString(), full.getResult().toString());
+                    });
+                });
+        return Metrics.time("upload.photo", upload);
+    }
+
+    /**
+     * Removes both copies of an item's photo, an item without a photo just logs a miss
+     */
+    public static void delete(@NonNull String itemId) {
+        StorageReference dir = photosRef(itemId);
+        for (String name : new String[]{THUMB_NAME, FULL_NAME}) {
+            dir.child(name).delete().addOnFailureListener(e ->
+                    Log.e(TAG, "Could not delete " + itemId + "/" + name, e));
+        }
+    }
+
+    private static StorageReference photosRef(String itemId) {
+        return FirebaseStorage.getInstance().getReference("itemPhotos").child(itemId);
+    }
+
+    // Uploads the bytes and resolves to the file's download URL
+    private static Task<Uri> put(StorageReference ref, byte[] jpeg, String ownerUid) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType("image/jpeg")
+                .setCacheControl(CACHE_CONTROL)
+                .setCustomMetadata(OWNER_UID, ownerUid)
+                .build();
+        return ref.putBytes(jpeg, metadata).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            return ref.getDownloadUrl();
+        });
+    }
+
+    // Returns the full size and thumbnail JPEG bytes, in that order
+    private static byte[][] compress(ContentResolver resolver, Uri photo) throws IOException {
+        long start = Metrics.begin("compress.photo");
+        try {
+            return shrink(resolver, photo);
+        } finally {
+            Metrics.end("compress.photo", start);
+        }
+    }
+
+    private static byte[][] shrink(ContentResolver resolver, Uri photo) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, photo)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + photo);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, FULL_MAX_PX);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, photo)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Could not decode " + photo);
+        }
+
+        Bitmap full = scale(decoded, FULL_MAX_PX, rotation(resolver, photo));
+        if (full != decoded) {
+            decoded.recycle();
+        }
+        Bitmap thumb = scale(full, THUMB_MAX_PX, 0);
+
+        byte[][] copies = {toJpeg(full, FULL_QUALITY), toJpeg(thumb, THUMB_QUALITY)};
+        if (thumb != full) {
+            thumb.recycle();
+        }
+        full.recycle();
+        return copies;
+    }
+
+    // Largest power of two that still leaves the longest edge at least maxPx
+    private static int sampleSize(int width, int height, int maxPx) {
+        int longest = Math.max(width, height);
+        int sample = 1;
+        while (longest / (sample * 2) >= maxPx) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    // Scales the bitmap down to fit maxPx and applies the rotation in the same pass
+    private static Bitmap scale(Bitmap source, int maxPx, int rotation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        float factor = Math.min(1f, maxPx / (float) Math.max(width, height));
+        if (factor == 1f && rotation == 0) {
+            return source;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale(factor, factor);
+        matrix.postRotate(rotation);
+        return Bitmap.createBitmap(source, 0, 0, width, height, matrix, true);
+    }
+
+    // Camera photos are stored sideways with an EXIF tag saying how to turn them. The tag is
+    // dropped when recompressing, so the rotation is applied to the pixels instead.
+    private static int rotation(ContentResolver resolver, Uri photo) {
+        try (InputStream in = open(resolver, photo)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            // Formats without EXIF are already upright
+            return 0;
+        }
+    }
+
+    private static byte[] toJpeg(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        return out.toByteArray();
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri photo) throws IOException {
+        InputStream in = resolver.openInputStream(photo);
+        if (in == null) {
+            throw new FileNotFoundException("Could not open " + photo);
+        }
+        return in;
+    }
+}
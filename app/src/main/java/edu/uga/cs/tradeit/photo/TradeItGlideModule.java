@@ -0,0 +1,52 @@
+package edu.uga.cs.tradeit.photo;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Glide settings for item photos.
+ *
+ * Rows show small thumbnails, so the memory cache is sized to hold a few screens of them and a
+ * fling back up never decodes again. Decoded bitmaps are recycled through the pool instead of
+ * being allocated per row, which keeps the garbage collector out of the scroll.
+ */
+@GlideModule
+public final class TradeItGlideModule extends AppGlideModule {
+
+    // Downloaded photos kept on disk, thumbnails are around 20 KB each
+    private static final long DISK_CACHE_BYTES = 100L * 1024 * 1024;
+    private static final String DISK_CACHE_DIR = "item_photos";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator sizes = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(3)
+                .setBitmapPoolScreens(2)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(sizes.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(sizes.getBitmapPoolSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+
+        // Photos are JPEGs without transparency, so half the memory per pixel loses nothing
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        builder.setLogLevel(Log.ERROR);
+    }
+
+    // No library modules are declared in the manifest, skipping the scan saves startup time
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,309 @@
+package edu.uga.cs.tradeit.search;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.firebase.ui.database.SnapshotParser;
+
+import edu.uga.cs.tradeit.model.Item;
+import edu.uga.cs.tradeit.model.Price;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemSearchIndex is an on-device inverted index of item names, built from the item snapshots
+ * the app already receives while browsing. Tokens are kept in a sorted map so every query word
+ * is matched as a prefix with a single range lookup, no database query involved.
+ *
+ * Only the indexed items are written to disk, one line each, and the tokens are rebuilt from
+ * them when the app starts. Writes are batched and happen on a background thread.
+ */
+public class ItemSearchIndex {
+
+    private static final String TAG = "ItemSearchIndex";
+    private static final String FILE_NAME = "item_search_index.tsv";
+
+    // How long changes are collected before the index is written out
+    private static final long SAVE_DELAY_MS = 2000;
+
+    /**
+     * One searchable item, enough to show a result row and open its category
+     */
+    public static class Entry {
+        public final String itemId;
+        public final String catId;
+        public final String name;
+        public final String price;
+
+        Entry(String itemId, String catId, String name, String price) {
+            this.itemId = itemId;
+            this.catId = catId;
+            this.name = name;
+            this.price = price;
+        }
+    }
+
+    private static ItemSearchIndex instance;
+
+    private final File file;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+
+    // Guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final NavigableMap<String, Set<String>> tokens = new TreeMap<>();
+    private boolean saveScheduled;
+    // Ids removed before the file finished loading, so load does not bring them back
+    private final Set<String> removedWhileLoading = new HashSet<>();
+    private boolean loaded;
+
+    private ItemSearchIndex(File file) {
+        this.file = file;
+        io.execute(this::load);
+    }
+
+    public static synchronized ItemSearchIndex getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ItemSearchIndex(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Wraps an item parser so every parsed item is also indexed. Safe to run on any thread.
+     */
+    public SnapshotParser<Item> indexing(@NonNull SnapshotParser<Item> parser) {
+        return snapshot -> {
+            Item item = parser.parseSnapshot(snapshot);
+            put(item);
+            return item;
+        };
+    }
+
+    /**
+     * Adds or refreshes an item
+     */
+    public void put(@NonNull Item item) {
+        if (item.id == null || item.catId == null || item.name == null) {
+            return;
+        }
+        String price = item.priceText != null ? item.priceText : Price.display(item);
+        synchronized (this) {
+            Entry old = entries.get(item.id);
+            if (old != null && old.name.equals(item.name) && old.catId.equals(item.catId)
+                    && equalsOrBothNull(old.price, price)) {
+                return;
+            }
+            putLocked(new Entry(item.id, item.catId, item.name, price));
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Drops an item that was removed from the database
+     */
+    public void remove(@NonNull String itemId) {
+        synchronized (this) {
+            if (!loaded) {
+                removedWhileLoading.add(itemId);
+            }
+            if (!removeLocked(itemId)) {
+                return;
+            }
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Items whose name has a word starting with every word of the query, sorted by name
+     */
+    @NonNull
+    public List<Entry> search(@NonNull String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> results = new ArrayList<>();
+        synchronized (this) {
+            Set<String> matches = null;
+            for (String word : words) {
+                Set<String> wordMatches = new HashSet<>();
+                for (Set<String> ids : tokens.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+                    wordMatches.addAll(ids);
+                }
+                if (matches == null) {
+                    matches = wordMatches;
+                } else {
+                    matches.retainAll(wordMatches);
+                }
+                if (matches.isEmpty()) {
+                    return results;
+                }
+            }
+            for (String id : matches) {
+                results.add(entries.get(id));
+            }
+        }
+
+        Collections.sort(results, (a, b) -> a.name.compareToIgnoreCase(b.name));
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    // Lower case words made of letters and digits
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private void putLocked(Entry entry) {
+        removeLocked(entry.itemId);
+        entries.put(entry.itemId, entry);
+        for (String word : tokenize(entry.name)) {
+            Set<String> ids = tokens.get(word);
+            if (ids == null) {
+                ids = new HashSet<>();
+                tokens.put(word, ids);
+            }
+            ids.add(entry.itemId);
+        }
+    }
+
+    private boolean removeLocked(String itemId) {
+        Entry old = entries.remove(itemId);
+        if (old == null) {
+            return false;
+        }
+        for (String word : tokenize(old.name)) {
+            Set<String> ids = tokens.get(word);
+            if (ids != null) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    tokens.remove(word);
+                }
+            }
+        }
+        return true;
+    }
+
+    private synchronized void scheduleSave() {
+        if (!saveScheduled) {
+            saveScheduled = true;
+            io.schedule(this::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on the io thread. Entries seen or removed before the file finished loading win over
+    // the file.
+    private void load() {
+        boolean skipped = false;
+        if (!file.exists()) {
+            finishLoad(false);
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length != 4) {
+                    continue;
+                }
+                Entry entry = new Entry(parts[0], parts[1], parts[2], parts[3].isEmpty() ? null : parts[3]);
+                synchronized (this) {
+                    if (removedWhileLoading.contains(entry.itemId)) {
+                        skipped = true;
+                    } else if (!entries.containsKey(entry.itemId)) {
+                        putLocked(entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Could not load index", e);
+        }
+        finishLoad(skipped);
+    }
+
+    // Stops recording removals, and rewrites the file if it still holds items removed meanwhile
+    private void finishLoad(boolean skipped) {
+        synchronized (this) {
+            loaded = true;
+            removedWhileLoading.clear();
+        }
+        if (skipped) {
+            scheduleSave();
+        }
+    }
+
+    // Runs on the io thread, writes to a temp file first so a crash never leaves half a file
+    private void save() {
+        List<Entry> copy;
+        synchronized (this) {
+            saveScheduled = false;
+            copy = new ArrayList<>(entries.values());
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            for (Entry entry : copy) {
+                writer.write(clean(entry.itemId));
+                writer.write('\t');
+                writer.write(clean(entry.catId));
+                writer.write('\t');
+                writer.write(clean(entry.name));
+                writer.write('\t');
+                writer.write(entry.price != null ? clean(entry.price) : "");
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save index", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace index file");
+        }
+    }
+
+    // Tabs and line breaks would break the line format
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static boolean equalsOrBothNull(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
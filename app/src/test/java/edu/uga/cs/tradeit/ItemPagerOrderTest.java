@@ -0,0 +1,91 @@
+package edu.uga.cs.tradeit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import edu.uga.cs.tradeit.data.IndexedQueries;
+
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that every order an ItemPager can be given sorts on an indexed child. Each factory on
+ * ItemPager.Order is called with every spec it can take, so a new factory is checked without
+ * being listed here.
+ */
+public class ItemPagerOrderTest {
+
+    @Test
+    public void ordersCanOnlyBeMadeByTheFactories() {
+        for (Constructor<?> constructor : ItemPager.Order.class.getDeclaredConstructors()) {
+            assertTrue("Order constructors must stay private: " + constructor,
+                    Modifier.isPrivate(constructor.getModifiers()));
+        }
+    }
+
+    @Test
+    public void everyFactoryOrdersByAnIndexedSpec() throws Exception {
+        int factories = 0;
+        for (Method method : ItemPager.Order.class.getDeclaredMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != ItemPager.Order.class) {
+                continue;
+            }
+            factories++;
+            for (Object[] args : argumentsFor(method)) {
+                ItemPager.Order order = (ItemPager.Order) method.invoke(null, args);
+                if (order.spec == null) {
+                    // Key order needs no index
+                    assertTrue(method.getName() + " orders by key but has a field", order.field == null);
+                    continue;
+                }
+                assertTrue(method.getName() + " orders by " + order.spec + " which is not in IndexedQueries.ALL",
+                        IndexedQueries.ALL.contains(order.spec));
+                assertTrue(method.getName() + " orders by a field other than its spec's",
+                        order.spec.orderBy.equals(order.field));
+            }
+        }
+        assertFalse("No Order factories found", factories == 0);
+    }
+
+    // Every combination of spec the factory accepts, with neutral values for the other parameters
+    private static List<Object[]> argumentsFor(Method method) {
+        List<Object[]> calls = new ArrayList<>();
+        calls.add(new Object[method.getParameterCount()]);
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            List<Object[]> next = new ArrayList<>();
+            for (Object[] call : calls) {
+                for (Object value : valuesFor(method, types[i])) {
+                    Object[] copy = call.clone();
+                    copy[i] = value;
+                    next.add(copy);
+                }
+            }
+            calls = next;
+        }
+        return calls;
+    }
+
+    private static List<Object> valuesFor(Method method, Class<?> type) {
+        List<Object> values = new ArrayList<>();
+        if (type == IndexedQueries.Spec.class) {
+            values.addAll(IndexedQueries.ALL);
+        } else if (type == boolean.class) {
+            values.add(false);
+            values.add(true);
+        } else if (type == Double.class) {
+            values.add(null);
+        } else if (type == String.class) {
+            values.add("prefix");
+        } else {
+            fail("Teach ItemPagerOrderTest a value for " + type + " in " + method.getName());
+        }
+        return values;
+    }
+}
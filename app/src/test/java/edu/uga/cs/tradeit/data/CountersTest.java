@@ -0,0 +1,75 @@
+package edu.uga.cs.tradeit.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CountersTest {
+
+    private static final Pattern SHARD = Pattern.compile("categories/cat1/itemShards/(\\d+)");
+
+    @Test
+    public void categoryChangesSpreadOverEveryShard() {
+        Counters counters = new Counters();
+        int changes = 1000;
+        for (int i = 0; i < changes; i++) {
+            counters.categoryItems("cat1", 1);
+        }
+        Map<String, Object> updates = new HashMap<>();
+        counters.putInto(updates);
+
+        Set<Integer> shards = new HashSet<>();
+        long total = 0;
+        for (Map.Entry<String, Object> update : updates.entrySet()) {
+            Matcher matcher = SHARD.matcher(update.getKey());
+            assertTrue("Not a shard path: " + update.getKey(), matcher.matches());
+            int shard = Integer.parseInt(matcher.group(1));
+            assertTrue("Shard out of range: " + shard, shard >= 0 && shard < Counters.CATEGORY_SHARDS);
+            shards.add(shard);
+            total += increment(update.getValue());
+        }
+        assertEquals(changes, total);
+        assertEquals(Counters.CATEGORY_SHARDS, shards.size());
+    }
+
+    @Test
+    public void changesToOneCounterAddUp() {
+        Map<String, Object> updates = new HashMap<>();
+        new Counters()
+                .user("u1", Counters.PENDING, 1)
+                .user("u1", Counters.PENDING, 1)
+                .user("u1", Counters.LISTED, -1)
+                .putInto(updates);
+
+        assertEquals(2, updates.size());
+        assertEquals(2, increment(updates.get("counters/u1/pending")));
+        assertEquals(-1, increment(updates.get("counters/u1/listed")));
+    }
+
+    @Test
+    public void changesThatCancelOutAreNotWritten() {
+        Map<String, Object> updates = new HashMap<>();
+        new Counters()
+                .user("u1", Counters.PENDING, -1)
+                .user("u1", Counters.COMPLETED, 1)
+                .user("u1", Counters.PENDING, 1)
+                .putInto(updates);
+
+        assertEquals(1, updates.size());
+        assertEquals(1, increment(updates.get("counters/u1/completed")));
+    }
+
+    // Reads n back out of the {".sv": {"increment": n}} placeholder ServerValue.increment writes
+    private static long increment(Object placeholder) {
+        Object sv = ((Map<?, ?>) placeholder).get(".sv");
+        return ((Number) ((Map<?, ?>) sv).get("increment")).longValue();
+    }
+}
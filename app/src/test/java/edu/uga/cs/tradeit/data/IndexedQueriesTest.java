@@ -0,0 +1,200 @@
+package edu.uga.cs.tradeit.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks that every query the app runs has an index in database.rules.json.
+ *
+ * The rules and source checks run on every build, ItemPagerOrderTest covers the pager's orders.
+ * The emulator check loads the rules file into the Realtime Database emulator and runs each query
+ * over REST, which unlike the SDK refuses to sort on a child without an index. Run it with the
+ * emulator up:
+ *
+ *   firebase emulators:exec --only database "./gradlew :app:testDebugUnitTest -PuseEmulators=true"
+ */
+public class IndexedQueriesTest {
+
+    private static final File RULES = new File("../database.rules.json");
+    private static final File SOURCES = new File("src/main/java");
+
+    private static final String NAMESPACE = "tradeit-d95a4-default-rtdb";
+
+    // Spec.on is the one place allowed to order by a child
+    private static final Pattern ORDER_BY_CHILD = Pattern.compile("\\borderByChild\\s*\\(([^)]*)\\)");
+    private static final String SPEC_SOURCE = "IndexedQueries.java";
+
+    @Test
+    public void everySpecHasAnIndexInTheRules() throws Exception {
+        JSONObject rules = new JSONObject(read(RULES)).getJSONObject("rules");
+        for (IndexedQueries.Spec spec : IndexedQueries.ALL) {
+            JSONObject node = ruleAt(rules, spec.path);
+            assertTrue("No rules at " + spec.path + " for " + spec, node != null);
+            assertTrue("database.rules.json has no .indexOn for " + spec,
+                    indexes(node).contains(spec.orderBy));
+        }
+    }
+
+    @Test
+    public void everyOrderByChildGoesThroughASpec() throws Exception {
+        List<String> calls = new ArrayList<>();
+        for (File file : javaFiles(SOURCES)) {
+            if (file.getName().equals(SPEC_SOURCE)) {
+                continue;
+            }
+            Matcher matcher = ORDER_BY_CHILD.matcher(read(file));
+            while (matcher.find()) {
+                calls.add(file.getName() + ": orderByChild(" + matcher.group(1) + ")");
+            }
+        }
+        assertEquals("Order queries with IndexedQueries.Spec.on so their index is checked",
+                new ArrayList<String>(), calls);
+    }
+
+    @Test
+    public void emulatorRunsEverySpecOnTheServer() throws Exception {
+        String host = System.getProperty("databaseEmulator", "");
+        Assume.assumeTrue("Database emulator not configured, pass -PuseEmulators=true", !host.isEmpty());
+        String base = "http://" + host;
+
+        request("PUT", base + "/.settings/rules.json?ns=" + NAMESPACE, read(RULES));
+
+        for (IndexedQueries.Spec spec : IndexedQueries.ALL) {
+            String path = spec.path.replaceAll("\\$[A-Za-z]+", "index-test");
+            String url = base + "/" + path + ".json?ns=" + NAMESPACE
+                    + "&orderBy=" + URLEncoder.encode("\"" + spec.orderBy + "\"", "UTF-8")
+                    + "&limitToFirst=1";
+            HttpURLConnection connection = open("GET", url);
+            try {
+                int code = connection.getResponseCode();
+                if (code != 200) {
+                    fail(spec + " was rejected by the emulator (" + code + "): "
+                            + body(connection.getErrorStream()));
+                }
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+
+    // Follows the path through the rules, a $ segment matches the rules' own $ wildcard
+    private static JSONObject ruleAt(JSONObject rules, String path) {
+        JSONObject node = rules;
+        for (String segment : path.split("/")) {
+            JSONObject next = segment.startsWith("$") ? wildcardChild(node) : node.optJSONObject(segment);
+            if (next == null) {
+                return null;
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    private static JSONObject wildcardChild(JSONObject node) {
+        Iterator<String> keys = node.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith("$")) {
+                return node.optJSONObject(key);
+            }
+        }
+        return null;
+    }
+
+    // .indexOn may be a single child name or a list of them
+    private static List<String> indexes(JSONObject node) {
+        List<String> result = new ArrayList<>();
+        Object indexOn = node.opt(".indexOn");
+        if (indexOn instanceof String) {
+            result.add((String) indexOn);
+        } else if (indexOn instanceof JSONArray) {
+            JSONArray array = (JSONArray) indexOn;
+            for (int i = 0; i < array.length(); i++) {
+                result.add(array.getString(i));
+            }
+        }
+        return result;
+    }
+
+    private static List<File> javaFiles(File dir) {
+        List<File> files = new ArrayList<>();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return files;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                files.addAll(javaFiles(child));
+            } else if (child.getName().endsWith(".java")) {
+                files.add(child);
+            }
+        }
+        return files;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void request(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = open(method, url);
+        try {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+            int code = connection.getResponseCode();
+            if (code != 200) {
+                throw new IOException(method + " " + url + " failed with " + code + ": "
+                        + body(connection.getErrorStream()));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // The emulator lets this token bypass the read rules, so only the index is being checked
+    private static HttpURLConnection open(String method, String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Authorization", "Bearer owner");
+        return connection;
+    }
+
+    private static String body(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream stream = in) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                result.write(buffer, 0, read);
+            }
+            return new String(result.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
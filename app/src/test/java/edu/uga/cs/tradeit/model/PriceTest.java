@@ -0,0 +1,58 @@
+package edu.uga.cs.tradeit.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class PriceTest {
+
+    @Test
+    public void parseCentsReadsAmounts() {
+        assertEquals(Long.valueOf(1200), Price.parseCents("12"));
+        assertEquals(Long.valueOf(150), Price.parseCents("$1.5"));
+        assertEquals(Long.valueOf(100000), Price.parseCents("1,000"));
+        assertEquals(Long.valueOf(120000), Price.parseCents(" $1,200.00 "));
+        assertEquals(Long.valueOf(1), Price.parseCents("0.01"));
+    }
+
+    @Test
+    public void parseCentsTreatsFreeAndEmptyAsZero() {
+        assertEquals(Long.valueOf(0), Price.parseCents("free"));
+        assertEquals(Long.valueOf(0), Price.parseCents("FREE"));
+        assertEquals(Long.valueOf(0), Price.parseCents(""));
+        assertEquals(Long.valueOf(0), Price.parseCents("   "));
+        assertEquals(Long.valueOf(0), Price.parseCents(null));
+    }
+
+    @Test
+    public void parseCentsRejectsWhatIsNotAPrice() {
+        assertNull(Price.parseCents("abc"));
+        assertNull(Price.parseCents("12 dollars"));
+        assertNull(Price.parseCents("1.234"));
+        assertNull(Price.parseCents("-5"));
+        assertNull(Price.parseCents("99999999999999999999"));
+    }
+
+    @Test
+    public void bucketBoundaries() {
+        assertEquals(Price.NO_PRICE_BUCKET, Price.bucket(null));
+        assertEquals(0, Price.bucket(0L));
+        assertEquals(1, Price.bucket(1L));
+        assertEquals(1, Price.bucket(500L));
+        assertEquals(2, Price.bucket(501L));
+        assertEquals(2, Price.bucket(1000L));
+        assertEquals(3, Price.bucket(1001L));
+        assertEquals(8, Price.bucket(100000L));
+        assertEquals(9, Price.bucket(100001L));
+        assertEquals(9, Price.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void formatRoundTrips() {
+        assertEquals("free", Price.format(0));
+        assertEquals("$0.05", Price.format(5));
+        assertEquals("$1200.00", Price.format(120000));
+        assertEquals(Long.valueOf(120000), Price.parseCents(Price.format(120000)));
+    }
+}
@@ -0,0 +1,49 @@
+package edu.uga.cs.tradeit.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ProfileTest {
+
+    @Test
+    public void defaultDisplayNameIsTheLocalPart() {
+        assertEquals("jane.doe", Profile.defaultDisplayName("jane.doe@uga.edu"));
+    }
+
+    @Test
+    public void defaultDisplayNameWithoutAnAtIsTheWholeText() {
+        assertEquals("jane", Profile.defaultDisplayName("jane"));
+        assertEquals("@uga.edu", Profile.defaultDisplayName("@uga.edu"));
+    }
+
+    @Test
+    public void longLocalPartIsCutToTheRulesLimit() {
+        String local = repeat('a', 60);
+        String name = Profile.defaultDisplayName(local + "@uga.edu");
+        assertEquals(Profile.MAX_DISPLAY_NAME, name.length());
+        assertEquals(local.substring(0, Profile.MAX_DISPLAY_NAME), name);
+    }
+
+    @Test
+    public void cutNeverSplitsASurrogatePair() {
+        // 49 letters then an emoji, which takes two chars and would straddle the limit
+        String local = repeat('a', Profile.MAX_DISPLAY_NAME - 1) + "\uD83D\uDE00" + repeat('b', 9);
+        assertEquals(repeat('a', Profile.MAX_DISPLAY_NAME - 1),
+                Profile.defaultDisplayName(local + "@uga.edu"));
+    }
+
+    @Test
+    public void displayFallsBackForMissingProfiles() {
+        assertEquals("unknown user", Profile.display(null));
+        assertEquals("unknown user", Profile.display(new Profile()));
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package edu.uga.cs.tradeit.search;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ItemSearchIndexTest {
+
+    @Test
+    public void tokenizeSplitsOnAnythingButLettersAndDigits() {
+        assertEquals(Arrays.asList("used", "bike", "26", "inch"),
+                ItemSearchIndex.tokenize("Used bike, 26-inch!"));
+    }
+
+    @Test
+    public void tokenizeLowercases() {
+        assertEquals(Arrays.asList("ipad", "mini"), ItemSearchIndex.tokenize("iPad MINI"));
+    }
+
+    @Test
+    public void tokenizeKeepsNonAsciiLetters() {
+        assertEquals(Arrays.asList("caf\u00e9", "chair"), ItemSearchIndex.tokenize("Caf\u00e9 chair"));
+    }
+
+    @Test
+    public void tokenizeOfNothingIsEmpty() {
+        assertEquals(Collections.emptyList(), ItemSearchIndex.tokenize(""));
+        assertEquals(Collections.emptyList(), ItemSearchIndex.tokenize("  -- !! "));
+    }
+}
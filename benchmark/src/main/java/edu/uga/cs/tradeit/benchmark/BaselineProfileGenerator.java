@@ -0,0 +1,38 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the Login -> Main -> Categories path. Copy the generated file over
+ * app/src/main/baseline-prof.txt when the startup path changes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        EmulatorSeeder.seed();
+    }
+
+    @Test
+    public void startupPath() {
+        baselineProfileRule.collect(Journeys.PACKAGE, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            Journeys.login(scope);
+            Journeys.openCategory(scope, EmulatorSeeder.LARGE_CATEGORY);
+            return Unit.INSTANCE;
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * EmulatorSeeder replaces the Realtime Database emulator's contents with a fixed dataset and makes
+ * sure the benchmark users exist in the Auth emulator, so every run measures the same data.
+ *
+ * The dataset is generated from constants rather than random values: one large category for
+ * scrolling, one small category for posting, a page of latest listings and a list of pending trades.
+ * Items in the large category have photos, uploaded to the Storage emulator the way the app
+ * stores them.
+ */
+final class EmulatorSeeder {
+
+    // The host machine as seen from the Android emulator
+    private static final String HOST = "http://10.0.2.2";
+    private static final String DATABASE_URL = HOST + ":9000";
+    private static final String AUTH_URL = HOST + ":9099/identitytoolkit.googleapis.com/v1/";
+    private static final String STORAGE_URL = HOST + ":9199/v0/b/tradeit-d95a4.firebasestorage.app/o";
+    private static final String NAMESPACE = "tradeit-d95a4-default-rtdb";
+
+    static final String BUYER_EMAIL = "bench.buyer@example.com";
+    static final String SELLER_EMAIL = "bench.seller@example.com";
+    static final String PASSWORD = "benchmark123";
+
+    static final String LARGE_CATEGORY = "Bench Large";
+    static final String SMALL_CATEGORY = "Bench Small";
+
+    private static final int LARGE_ITEMS = 2000;
+    private static final int SMALL_ITEMS = 20;
+    private static final int RECENT_ITEMS = 100;
+    private static final int PENDING_TRADES = 50;
+    // Distinct photos shared round robin by the large category, enough that a fling through it
+    // misses Glide's memory cache like a real category would
+    private static final int PHOTOS = 200;
+    // Same size and quality as PhotoUploader's thumbnails
+    private static final int THUMB_WIDTH = 320;
+    private static final int THUMB_HEIGHT = 240;
+    private static final int THUMB_QUALITY = 70;
+
+    // Every timestamp is an offset from this so runs never depend on the clock
+    private static final long BASE_TIME = 1_700_000_000_000L;
+    private static final long MAX_TIMESTAMP = 9999999999999L;
+    // Matches DataMigration.CURRENT_VERSION so the app does not migrate the seeded data
+    private static final int SCHEMA_VERSION = 8;
+
+    private EmulatorSeeder() {
+    }
+
+    /**
+     * Creates the users if needed and overwrites the whole database with the dataset
+     */
+    static void seed() throws IOException, JSONException {
+        String buyerUid = ensureUser(BUYER_EMAIL);
+        String sellerUid = ensureUser(SELLER_EMAIL);
+
+        JSONObject root = new JSONObject();
+        JSONObject categories = new JSONObject();
+        JSONObject items = new JSONObject();
+        JSONObject recent = new JSONObject();
+        JSONObject sellerItems = new JSONObject();
+
+        String[] photoUrls = uploadPhotos();
+        addCategory(categories, items, recent, sellerItems, "cat_large", LARGE_CATEGORY,
+                LARGE_ITEMS, sellerUid, photoUrls);
+        addCategory(categories, items, recent, sellerItems, "cat_small", SMALL_CATEGORY,
+                SMALL_ITEMS, sellerUid, null);
+
+        JSONObject pending = new JSONObject();
+        for (int i = 0; i < PENDING_TRADES; i++) {
+            String transId = String.format(Locale.US, "trans_%04d", i);
+            long cents = priceCents(i);
+            pending.put(transId, new JSONObject()
+                    .put("buyerUid", buyerUid)
+                    .put("sellerUid", sellerUid)
+                    .put("itemName", "Pending item " + i)
+                    .put("itemId", "sold_" + i)
+                    .put("catId", "cat_large")
+                    .put("postedDate", BASE_TIME - i * 60_000L)
+                    .put("price", formatPrice(cents)));
+        }
+
+        JSONObject users = new JSONObject()
+                .put(buyerUid, new JSONObject()
+                        .put("email", BUYER_EMAIL)
+                        .put("pending", pending))
+                .put(sellerUid, new JSONObject()
+                        .put("email", SELLER_EMAIL)
+                        .put("items", sellerItems)
+                        .put("pending", pending));
+
+        JSONObject profiles = new JSONObject()
+                .put(buyerUid, new JSONObject().put("displayName", "bench.buyer"))
+                .put(sellerUid, new JSONObject().put("displayName", "bench.seller"));
+
+        JSONObject counters = new JSONObject()
+                .put(buyerUid, new JSONObject()
+                        .put("pending", PENDING_TRADES))
+                .put(sellerUid, new JSONObject()
+                        .put("listed", sellerItems.length())
+                        .put("pending", PENDING_TRADES));
+
+        JSONObject transactions = new JSONObject().put("pending", pending);
+
+        root.put("categories", categories)
+                .put("items", items)
+                .put("recentItems", recent)
+                .put("users", users)
+                .put("profiles", profiles)
+                .put("counters", counters)
+                .put("transactions", transactions)
+                .put("meta", new JSONObject().put("schemaVersion", SCHEMA_VERSION));
+
+        request("PUT", DATABASE_URL + "/.json?ns=" + NAMESPACE, root.toString(), true);
+    }
+
+    // Uploads a solid colour JPEG per photo and returns their download URLs
+    private static String[] uploadPhotos() throws IOException, JSONException {
+        String[] urls = new String[PHOTOS];
+        for (int i = 0; i < PHOTOS; i++) {
+            String name = URLEncoder.encode(
+                    String.format(Locale.US, "itemPhotos/bench_%03d/thumb.jpg", i), "UTF-8");
+            String response = request("POST", STORAGE_URL + "?uploadType=media&name=" + name,
+                    photo(i), "image/jpeg", true);
+            // The token lets Glide download the file without signing in, like a real download URL
+            String token = new JSONObject(response).getString("downloadTokens");
+            urls[i] = STORAGE_URL + "/" + name + "?alt=media&token=" + token;
+        }
+        return urls;
+    }
+
+    private static byte[] photo(int i) {
+        Bitmap bitmap = Bitmap.createBitmap(THUMB_WIDTH, THUMB_HEIGHT, Bitmap.Config.RGB_565);
+        bitmap.eraseColor(Color.HSVToColor(new float[]{i * 360f / PHOTOS, 0.6f, 0.9f}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, THUMB_QUALITY, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    private static void addCategory(JSONObject categories, JSONObject items, JSONObject recent,
+                                    JSONObject sellerItems, String catId, String name, int count,
+                                    String sellerUid, String[] photoUrls) throws JSONException {
+        categories.put(catId, new JSONObject()
+                .put("name", name)
+                .put("creatorUid", sellerUid)
+                .put("createdDate", BASE_TIME)
+                .put("itemShards", new JSONObject().put("0", count)));
+
+        JSONObject catItems = new JSONObject();
+        for (int i = 0; i < count; i++) {
+            String itemId = String.format(Locale.US, "%s_item_%05d", catId, i);
+            long postedDate = BASE_TIME - i * 60_000L;
+            long cents = priceCents(i);
+            JSONObject item = new JSONObject()
+                    .put("id", itemId)
+                    .put("name", name + " item " + i)
+                    .put("postedDate", postedDate)
+                    .put("posterUid", sellerUid)
+                    .put("priceCents", cents)
+                    .put("isFree", cents == 0)
+                    .put("price", formatPrice(cents))
+                    .put("catId", catId);
+            if (photoUrls != null) {
+                // The scroll only loads thumbnails, so the full size URL reuses the same file
+                String url = photoUrls[i % photoUrls.length];
+                item.put("thumbUrl", url).put("photoUrl", url);
+            }
+            if (i < RECENT_ITEMS) {
+                String feedKey = String.format(Locale.US, "%013d_%s", MAX_TIMESTAMP - postedDate, itemId);
+                item.put("feedKey", feedKey);
+                recent.put(feedKey, new JSONObject(item.toString()));
+            }
+            catItems.put(itemId, item);
+            sellerItems.put(itemId, item);
+        }
+        items.put(catId, catItems);
+    }
+
+    // Every tenth item is free, the rest spread over a range of prices
+    private static long priceCents(int i) {
+        return i % 10 == 0 ? 0 : (i * 137L) % 50_000 + 100;
+    }
+
+    private static String formatPrice(long cents) {
+        return cents == 0 ? "free" : String.format(Locale.US, "$%d.%02d", cents / 100, cents % 100);
+    }
+
+    // Signs the user up, or signs in when the account is already there, and returns its uid
+    private static String ensureUser(String email) throws IOException, JSONException {
+        String body = new JSONObject()
+                .put("email", email)
+                .put("password", PASSWORD)
+                .put("returnSecureToken", true)
+                .toString();
+        String response;
+        try {
+            response = request("POST", AUTH_URL + "accounts:signUp?key=benchmark", body, false);
+        } catch (IOException alreadyExists) {
+            response = request("POST", AUTH_URL + "accounts:signInWithPassword?key=benchmark", body, false);
+        }
+        return new JSONObject(response).getString("localId");
+    }
+
+    private static String request(String method, String url, String body, boolean asOwner)
+            throws IOException {
+        return request(method, url, body.getBytes(StandardCharsets.UTF_8), "application/json", asOwner);
+    }
+
+    private static String request(String method, String url, byte[] body, String contentType,
+                                  boolean asOwner) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            if (asOwner) {
+                // The database and storage emulators let this token bypass the security rules
+                connection.setRequestProperty("Authorization", "Bearer owner");
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int code = connection.getResponseCode();
+            if (code / 100 != 2) {
+                throw new IOException(method + " " + url + " failed with " + code);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream result = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    result.write(buffer, 0, read);
+                }
+                return new String(result.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
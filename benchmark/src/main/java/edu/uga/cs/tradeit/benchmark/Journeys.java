@@ -0,0 +1,81 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * Journeys drives the app through its screens with UI Automator, shared by every benchmark
+ */
+final class Journeys {
+
+    static final String PACKAGE = "edu.uga.cs.tradeit";
+
+    // Generous because the first sync from the emulator can be slow on a cold emulator
+    private static final long TIMEOUT_MS = 15_000;
+
+    private Journeys() {
+    }
+
+    /**
+     * Logs in as the seeded buyer from the login screen and waits for the main screen
+     */
+    static void login(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 email = waitFor(device, "etEmail");
+        email.setText(EmulatorSeeder.BUYER_EMAIL);
+        waitFor(device, "etPassword").setText(EmulatorSeeder.PASSWORD);
+        waitFor(device, "btnLogin").click();
+        waitFor(device, "btnCategories");
+    }
+
+    /**
+     * Opens a category from the main screen and waits for its first rows
+     */
+    static void openCategory(MacrobenchmarkScope scope, String name) {
+        UiDevice device = scope.getDevice();
+        waitFor(device, "btnCategories").click();
+        UiObject2 row = device.wait(Until.findObject(By.text(name)), TIMEOUT_MS);
+        if (row == null) {
+            throw new AssertionError("Category not found: " + name);
+        }
+        row.click();
+        waitForRows(device, "rvItems");
+    }
+
+    /**
+     * Flings the list down a few times and lets it settle
+     */
+    static void scrollList(MacrobenchmarkScope scope, String listId) {
+        UiDevice device = scope.getDevice();
+        UiObject2 list = waitFor(device, listId);
+        // Keeps the fling away from the gesture navigation area
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < 5; i++) {
+            list.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+    }
+
+    /**
+     * Waits until the list has at least one item row in it
+     */
+    static void waitForRows(UiDevice device, String listId) {
+        boolean found = device.wait(Until.hasObject(By.res(PACKAGE, listId)
+                .hasDescendant(By.res(PACKAGE, "tvItemName"))), TIMEOUT_MS);
+        if (!found) {
+            throw new AssertionError("No rows in " + listId);
+        }
+    }
+
+    static UiObject2 waitFor(UiDevice device, String resourceId) {
+        UiObject2 found = device.wait(Until.findObject(By.res(PACKAGE, resourceId)), TIMEOUT_MS);
+        if (found == null) {
+            throw new AssertionError("View not found: " + resourceId);
+        }
+        return found;
+    }
+}
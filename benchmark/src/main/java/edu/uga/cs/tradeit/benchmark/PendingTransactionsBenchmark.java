@@ -0,0 +1,57 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing from tapping Pending Transactions on the main screen until the seeded trades show
+ */
+@RunWith(AndroidJUnit4.class)
+public class PendingTransactionsBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        EmulatorSeeder.seed();
+    }
+
+    @Test
+    public void openPending() {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    Journeys.login(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    Journeys.waitFor(device, "btnPending").click();
+                    Journeys.waitForRows(device, "rvPending");
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
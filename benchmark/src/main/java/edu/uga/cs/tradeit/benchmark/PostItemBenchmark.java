@@ -0,0 +1,62 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing for posting an item into the small category, from the add button until the list
+ * is back on screen
+ */
+@RunWith(AndroidJUnit4.class)
+public class PostItemBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        EmulatorSeeder.seed();
+    }
+
+    @Test
+    public void postItem() {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    Journeys.login(scope);
+                    Journeys.openCategory(scope, EmulatorSeeder.SMALL_CATEGORY);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    Journeys.waitFor(device, "fabPostItem").click();
+                    Journeys.waitFor(device, "etItemName").setText("Benchmark post");
+                    Journeys.waitFor(device, "etPrice").setText("12.50");
+                    Journeys.waitFor(device, "btnPost").click();
+                    Journeys.waitFor(device, "rvItems");
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold start to the login screen's first frame, with and without the baseline profile, so the
+ * profile's gain shows up as the difference between the two
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        EmulatorSeeder.seed();
+    }
+
+    @Test
+    public void coldStartNoCompilation() {
+        coldStart(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartBaselineProfile() {
+        coldStart(new CompilationMode.Partial());
+    }
+
+    private void coldStart(CompilationMode mode) {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                mode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
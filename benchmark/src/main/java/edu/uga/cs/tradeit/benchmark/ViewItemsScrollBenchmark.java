@@ -0,0 +1,55 @@
+package edu.uga.cs.tradeit.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while flinging through the seeded 2000 item category, which pages in more items
+ * and loads a photo thumbnail for every row as it goes
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewItemsScrollBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        EmulatorSeeder.seed();
+    }
+
+    @Test
+    public void scrollLargeCategory() {
+        benchmarkRule.measureRepeated(
+                Journeys.PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    Journeys.login(scope);
+                    Journeys.openCategory(scope, EmulatorSeeder.LARGE_CATEGORY);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.scrollList(scope, "rvItems");
+                    return Unit.INSTANCE;
+                });
+    }
+}